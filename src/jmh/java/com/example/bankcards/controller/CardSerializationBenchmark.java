@@ -0,0 +1,91 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Подготовка ответа со списком карт: маппинг в DTO с маскированием номера
+ * и сериализация Page&lt;CardDto&gt; тем же ObjectMapper, что строит Spring Boot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardSerializationBenchmark {
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private CardController controller;
+    private ObjectMapper objectMapper;
+    private List<Card> cards;
+    private Page<CardDto> page;
+
+    @Setup
+    public void setUp() {
+        controller = new CardController(null);
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        User owner = User.builder().id(1L).username("benchmark").build();
+        cards = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            cards.add(Card.builder()
+                    .id((long) i)
+                    .maskedNumber("4000" + String.format("%012d", i))
+                    .owner(owner)
+                    .expirationDate(LocalDate.of(2030, 12, 31))
+                    .status(CardStatus.ACTIVE)
+                    .balance(BigDecimal.valueOf(1000 + i, 2))
+                    .build());
+        }
+        page = new PageImpl<>(cards.stream().map(controller::toDto).toList(), PageRequest.of(0, pageSize), 10_000);
+    }
+
+    @Benchmark
+    public List<CardDto> toDto() {
+        return cards.stream().map(controller::toDto).toList();
+    }
+
+    @Benchmark
+    public String maskCardNumber() {
+        return controller.maskCardNumber("4000123412341234");
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws Exception {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    // Полный путь ответа: маппинг страницы и сериализация
+    @Benchmark
+    public byte[] mapAndSerializePage() throws Exception {
+        return objectMapper.writeValueAsBytes(
+                new PageImpl<>(cards.stream().map(controller::toDto).toList(), PageRequest.of(0, pageSize), 10_000));
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.bankcards.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Задержка решения лимитера (SampleTime даёт p99): один горячий пользователь из многих потоков
+ * (конкуренция за CAS одного ведра) и запросы 10 тысяч пользователей (промахи и вставки в кэш ведер).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class RateLimiterBenchmark {
+
+    private static final int USERS = 10_000;
+
+    private RateLimiter rateLimiter;
+
+    @Setup
+    public void setUp() {
+        // Квота заведомо не исчерпывается: измеряется путь разрешённого запроса
+        rateLimiter = new RateLimiter("POST /api/cards/transfer/**=1000000000/PT1S,GET /api/cards/**=1000000000/PT1S",
+                "1000000000/PT1S", 100_000, Duration.ofMinutes(10));
+    }
+
+    @Benchmark
+    public long hotUser() {
+        return rateLimiter.tryAcquire(1L, "POST", "/api/cards/transfer");
+    }
+
+    @Benchmark
+    public long manyUsers() {
+        long userId = ThreadLocalRandom.current().nextLong(USERS);
+        return rateLimiter.tryAcquire(userId, "GET", "/api/cards/42/transactions");
+    }
+}
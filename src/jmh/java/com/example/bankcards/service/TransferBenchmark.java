@@ -0,0 +1,112 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardTransactionRepository;
+import com.example.bankcards.repository.TransferRepository;
+import com.example.bankcards.repository.UserCardSummaryRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Логика перевода без БД: расчёт комиссии и изменение балансов.
+ * Репозитории заменены заглушками: save возвращает переданную сущность, числовые методы - 1 (одна строка
+ * изменена), boolean - false, остальные - null.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransferBenchmark {
+
+    // Ниже лимита - без комиссии, выше - с комиссией
+    @Param({"50000", "150000"})
+    private String amount;
+
+    private BigDecimal transferAmount;
+    private CardTransferService service;
+    private Card first;
+    private Card second;
+    private boolean forward;
+
+    @Setup
+    public void setUp() {
+        transferAmount = new BigDecimal(amount);
+
+        service = new CardTransferService(
+                stub(CardRepository.class),
+                new CaffeineCardMetadataCache(16, Duration.ofMinutes(1)),
+                stub(TransferRepository.class),
+                stub(CardTransactionRepository.class),
+                new CardSummaryService(stub(UserCardSummaryRepository.class)));
+
+        // Баланс с запасом: переводы идут в обе стороны, комиссия за прогон на порядки меньше
+        first = card(1L);
+        second = card(2L);
+    }
+
+    @Benchmark
+    public BigDecimal calculateCommission() {
+        return service.calculateCommission(transferAmount);
+    }
+
+    @Benchmark
+    public BigDecimal executeTransfer() {
+        forward = !forward;
+        if (forward) {
+            service.executeTransfer(first, second, transferAmount);
+        } else {
+            service.executeTransfer(second, first, transferAmount);
+        }
+        return first.getBalance();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> repositoryType) {
+        return (T) Proxy.newProxyInstance(
+                repositoryType.getClassLoader(),
+                new Class<?>[]{repositoryType},
+                (proxy, method, args) -> method.getName().equals("save") ? args[0] : defaultValue(method.getReturnType()));
+    }
+
+    // Примитивы нельзя вернуть как null: распаковка в вызывающем коде упадёт с NullPointerException
+    private static Object defaultValue(Class<?> type) {
+        if (type == int.class || type == Integer.class) {
+            return 1;
+        }
+        if (type == long.class || type == Long.class) {
+            return 1L;
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return false;
+        }
+        return null;
+    }
+
+    private static Card card(Long id) {
+        return Card.builder()
+                .id(id)
+                .owner(User.builder().id(1L).build())
+                .status(CardStatus.ACTIVE)
+                .balance(new BigDecimal("1000000000000000000"))
+                .build();
+    }
+}
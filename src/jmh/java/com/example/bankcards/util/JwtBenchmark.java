@@ -0,0 +1,89 @@
+package com.example.bankcards.util;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Проверка токенов в секунду: прежняя схема (два разбора, новый парсер на каждый вызов)
+ * против одного разбора и кэша проверенных токенов; выпуск и validateToken.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    private Key legacyKey;
+    private String legacyToken;
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    private JwtUtil cachingJwtUtil;
+    private String cachedToken;
+
+    @Setup
+    public void setUp() {
+        legacyKey = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+        legacyToken = Jwts.builder()
+                .setSubject("user1")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 3_600_000))
+                .signWith(legacyKey)
+                .compact();
+
+        jwtUtil = new JwtUtil(false, 0);
+        token = jwtUtil.generateToken("user1");
+
+        cachingJwtUtil = new JwtUtil(true, 10_000);
+        cachedToken = cachingJwtUtil.generateToken("user1");
+    }
+
+    // Прежний validateToken: extractUsername + extractExpiration, каждый строит парсер заново
+    @Benchmark
+    public boolean legacyDoubleParse() {
+        String username = Jwts.parserBuilder().setSigningKey(legacyKey).build()
+                .parseClaimsJws(legacyToken).getBody().getSubject();
+        Date expiration = Jwts.parserBuilder().setSigningKey(legacyKey).build()
+                .parseClaimsJws(legacyToken).getBody().getExpiration();
+        return username.equals("user1") && !expiration.before(new Date());
+    }
+
+    @Benchmark
+    public Claims singleParse() {
+        return jwtUtil.parseClaims(token);
+    }
+
+    @Benchmark
+    public Claims cachedVerify() {
+        return cachingJwtUtil.parseClaims(cachedToken);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken("user1");
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtUtil.validateToken(token, "user1");
+    }
+}
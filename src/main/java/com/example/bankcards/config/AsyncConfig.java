@@ -0,0 +1,11 @@
+package com.example.bankcards.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+// @Async и асинхронные ответы MVC идут через applicationTaskExecutor Spring Boot:
+// при spring.threads.virtual.enabled=true это виртуальные потоки, иначе пул spring.task.execution
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+}
@@ -0,0 +1,62 @@
+package com.example.bankcards.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Соединения транзакций {@code @Transactional(readOnly = true)} берутся из пула реплики, остальные - из основного.
+ * Если реплика отстала или недоступна, чтение тоже идёт в основную БД.
+ * <p>
+ * Признак readOnly выставляется после начала транзакции, поэтому источник оборачивается в
+ * LazyConnectionDataSourceProxy: физическое соединение выбирается при первом запросе, когда признак уже известен.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements MeterBinder {
+
+    enum Target {
+        PRIMARY, REPLICA
+    }
+
+    private final BooleanSupplier replicaUsable;
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder fallbackReads = new LongAdder();
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, BooleanSupplier replicaUsable) {
+        this.replicaUsable = replicaUsable;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return Target.PRIMARY;
+        }
+        if (replicaUsable.getAsBoolean()) {
+            replicaReads.increment();
+            return Target.REPLICA;
+        }
+        fallbackReads.increment();
+        return Target.PRIMARY;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("bankcards.datasource.reads", replicaReads, LongAdder::sum)
+                .description("Соединения read-only транзакций по источнику")
+                .tag("target", "replica")
+                .register(registry);
+        FunctionCounter.builder("bankcards.datasource.reads", fallbackReads, LongAdder::sum)
+                .description("Соединения read-only транзакций по источнику")
+                .tag("target", "primary")
+                .register(registry);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.bankcards.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Периодическая проверка отставания реплики. Реплика используется для чтения, пока отставание не больше maxLag;
+ * при ошибке запроса или большем отставании чтение уходит в основную БД до следующей успешной проверки.
+ */
+@Slf4j
+public class ReplicaLagMonitor implements InitializingBean, MeterBinder {
+
+    private final JdbcTemplate replica;
+    private final String lagQuery;
+    private final double maxLagSeconds;
+
+    private volatile boolean usable;
+    private volatile double lagSeconds = Double.NaN;
+
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, Duration maxLag) {
+        this.replica = new JdbcTemplate(replica);
+        this.replica.setQueryTimeout(Math.max(1, (int) maxLag.toSeconds()));
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        check();
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replica.lag-check-interval:PT1S}")
+    public void check() {
+        boolean wasUsable = usable;
+        try {
+            Double lag = replica.queryForObject(lagQuery, Double.class);
+            lagSeconds = lag != null ? lag : 0;
+            usable = lagSeconds <= maxLagSeconds;
+        } catch (RuntimeException e) {
+            lagSeconds = Double.NaN;
+            usable = false;
+            if (wasUsable) {
+                log.warn("Реплика недоступна, чтение переключено на основную БД: {}", e.getMessage());
+            }
+            return;
+        }
+        if (wasUsable != usable) {
+            log.info("Отставание реплики {} с, чтение из {}", lagSeconds, usable ? "реплики" : "основной БД");
+        }
+    }
+
+    public boolean isUsable() {
+        return usable;
+    }
+
+    public double lagSeconds() {
+        return lagSeconds;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("bankcards.datasource.replica.lag", this, ReplicaLagMonitor::lagSeconds)
+                .description("Отставание реплики по последней проверке; NaN - реплика недоступна")
+                .baseUnit("seconds")
+                .register(registry);
+        Gauge.builder("bankcards.datasource.replica.usable", this, monitor -> monitor.isUsable() ? 1 : 0)
+                .description("1 - read-only транзакции идут в реплику")
+                .register(registry);
+    }
+}
@@ -1,13 +1,16 @@
 package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardScrollResponse;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.repository.CardCursor;
 import com.example.bankcards.service.CardService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -22,6 +25,8 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class CardController {
 
+    private static final int MAX_SCROLL_SIZE = 100;
+
     private final CardService cardService;
 
     @GetMapping
@@ -33,16 +38,40 @@ public class CardController {
             @RequestParam(required = false) BigDecimal maxBalance,
             Pageable pageable
     ) {
-        Page<Card> cards = cardService.getUserCards(userDetails.getUsername(), pageable);
-        Page<CardDto> result = cards.map(this::toDto);
-        return ResponseEntity.ok(result);
+        Page<CardDto> cards = cardService.getUserCardViews(userDetails.getUsername(), status, minBalance, maxBalance, pageable);
+        return ResponseEntity.ok(cards.map(this::masked));
+    }
+
+    // Keyset-пагинация: первая страница - cursor= (пустой), далее nextCursor из предыдущего ответа
+    @GetMapping(params = "cursor")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<CardScrollResponse> scrollUserCards(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @RequestParam(required = false) CardStatus status,
+            @RequestParam(required = false) BigDecimal minBalance,
+            @RequestParam(required = false) BigDecimal maxBalance,
+            @RequestParam(defaultValue = "ID") CardCursor.SortKey orderBy,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        CardCursor position = cursor.isBlank() ? null : CardCursor.decode(cursor);
+        CardCursor.SortKey sortKey = position != null ? position.sortKey() : orderBy;
+        int pageSize = Math.max(1, Math.min(size, MAX_SCROLL_SIZE));
+
+        Slice<CardDto> cards = cardService.scrollUserCards(
+                userDetails.getUsername(), status, minBalance, maxBalance, sortKey, position, pageSize);
+
+        String nextCursor = cards.hasNext()
+                ? CardCursor.after(sortKey, cards.getContent().get(cards.getNumberOfElements() - 1)).encode()
+                : null;
+        return ResponseEntity.ok(new CardScrollResponse(
+                cards.getContent().stream().map(this::masked).toList(), nextCursor, cards.hasNext()));
     }
 
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('USER')")
     public ResponseEntity<CardDto> getCardById(@PathVariable Long id) {
-        Card card = cardService.getCardById(id);
-        return ResponseEntity.ok(toDto(card));
+        return ResponseEntity.ok(masked(cardService.getCardView(id)));
     }
 
     @PostMapping
@@ -82,7 +111,7 @@ public class CardController {
         return ResponseEntity.ok(Map.of("message", "Карта успешно удалена"));
     }
 
-    private CardDto toDto(Card card) {
+    CardDto toDto(Card card) {
         CardDto dto = new CardDto();
         dto.setId(card.getId());
         dto.setMaskedNumber(maskCardNumber(card.getMaskedNumber()));
@@ -93,7 +122,12 @@ public class CardController {
         return dto;
     }
 
-    private String maskCardNumber(String number) {
+    CardDto masked(CardDto dto) {
+        dto.setMaskedNumber(maskCardNumber(dto.getMaskedNumber()));
+        return dto;
+    }
+
+    String maskCardNumber(String number) {
         if (number == null || number.length() < 4) return "****";
         return "**** **** **** " + number.substring(number.length() - 4);
     }
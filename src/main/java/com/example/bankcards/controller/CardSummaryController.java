@@ -0,0 +1,27 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.dto.CardSummaryDto;
+import com.example.bankcards.security.UserPrincipal;
+import com.example.bankcards.service.CardSummaryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/cards")
+@RequiredArgsConstructor
+public class CardSummaryController {
+
+    private final CardSummaryService cardSummaryService;
+
+    // Общий баланс и число карт по статусам текущего пользователя - без выборки самих карт
+    @GetMapping("/summary")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<CardSummaryDto> getSummary(@AuthenticationPrincipal UserPrincipal currentUser) {
+        return ResponseEntity.ok(cardSummaryService.getSummary(currentUser.getId()));
+    }
+}
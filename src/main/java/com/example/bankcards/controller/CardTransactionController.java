@@ -0,0 +1,49 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.dto.CardTransactionDto;
+import com.example.bankcards.dto.CardTransactionScrollResponse;
+import com.example.bankcards.repository.TransactionCursor;
+import com.example.bankcards.security.UserPrincipal;
+import com.example.bankcards.service.CardTransactionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+
+@RestController
+@RequestMapping("/api/cards")
+@RequiredArgsConstructor
+public class CardTransactionController {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final CardTransactionService cardTransactionService;
+
+    // История операций карты, новые сверху. Период: from включительно, to - нет (ISO-8601, 2024-01-01T00:00:00Z).
+    // Первая страница - без cursor, далее nextCursor из предыдущего ответа
+    @GetMapping("/{id}/transactions")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<CardTransactionScrollResponse> getTransactions(
+            @AuthenticationPrincipal UserPrincipal currentUser,
+            @PathVariable Long id,
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        TransactionCursor position = cursor == null || cursor.isBlank() ? null : TransactionCursor.decode(cursor);
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        Slice<CardTransactionDto> history = cardTransactionService.getHistory(
+                id, currentUser.getId(), from, to, position, pageSize);
+
+        String nextCursor = history.hasNext()
+                ? TransactionCursor.after(history.getContent().get(history.getNumberOfElements() - 1)).encode()
+                : null;
+        return ResponseEntity.ok(new CardTransactionScrollResponse(history.getContent(), nextCursor, history.hasNext()));
+    }
+}
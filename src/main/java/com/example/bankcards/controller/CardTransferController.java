@@ -1,7 +1,10 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.BatchTransferRequest;
+import com.example.bankcards.dto.BatchTransferResult;
 import com.example.bankcards.dto.TransferRequest;
 import com.example.bankcards.service.CardTransferService;
+import com.example.bankcards.service.IdempotencyService;
 import com.example.bankcards.security.UserPrincipal;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
@@ -16,17 +19,26 @@ import java.util.Map;
 public class CardTransferController {
 
     private final CardTransferService cardTransferService;
+    private final IdempotencyService idempotencyService;
 
-    public CardTransferController(CardTransferService cardTransferService) {
+    public CardTransferController(CardTransferService cardTransferService, IdempotencyService idempotencyService) {
         this.cardTransferService = cardTransferService;
+        this.idempotencyService = idempotencyService;
     }
 
+    // С заголовком Idempotency-Key повтор запроса получает первый успешный ответ, перевод не выполняется повторно
     @PostMapping("/transfer")
     @PreAuthorize("hasRole('USER')")
     public ResponseEntity<?> transferBetweenOwnCards(
             @AuthenticationPrincipal UserPrincipal currentUser,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody TransferRequest request
     ) {
+        return idempotencyService.execute(currentUser.getId(), idempotencyKey, "transfer", request,
+                () -> transferOwn(currentUser, request));
+    }
+
+    private ResponseEntity<?> transferOwn(UserPrincipal currentUser, TransferRequest request) {
         try {
             cardTransferService.transferBetweenOwnCards(
                     currentUser,
@@ -49,8 +61,15 @@ public class CardTransferController {
     @PostMapping("/transfer/admin")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> adminTransfer(
+            @AuthenticationPrincipal UserPrincipal currentUser,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody TransferRequest request
     ) {
+        return idempotencyService.execute(currentUser.getId(), idempotencyKey, "transfer/admin", request,
+                () -> transferAny(request));
+    }
+
+    private ResponseEntity<?> transferAny(TransferRequest request) {
         try {
             cardTransferService.transferBetweenAnyCards(
                     request.getFromCard(),
@@ -68,4 +87,28 @@ public class CardTransferController {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
+
+    // Пакетный перевод администратором: одна транзакция на весь пакет, результат по каждому переводу
+    @PostMapping("/transfer/admin/batch")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> adminBatchTransfer(
+            @AuthenticationPrincipal UserPrincipal currentUser,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody BatchTransferRequest request
+    ) {
+        return idempotencyService.execute(currentUser.getId(), idempotencyKey, "transfer/admin/batch", request,
+                () -> transferBatch(request));
+    }
+
+    private ResponseEntity<?> transferBatch(BatchTransferRequest request) {
+        try {
+            BatchTransferResult result = cardTransferService.transferBatch(
+                    request.getTransfers(),
+                    request.getAtomicity()
+            );
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
 }
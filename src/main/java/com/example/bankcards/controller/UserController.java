@@ -3,15 +3,19 @@ package com.example.bankcards.controller;
 import com.example.bankcards.dto.UserDto;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.security.UserPrincipal;
+import com.example.bankcards.service.UserExportFormat;
+import com.example.bankcards.service.UserExportService;
 import com.example.bankcards.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
-import java.util.stream.Collectors;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/users")
@@ -19,15 +23,23 @@ import java.util.stream.Collectors;
 public class UserController {
 
     private final UserService userService;
+    private final UserExportService userExportService;
 
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<UserDto>> getAllUsers() {
-        List<UserDto> users = userService.getAllUsers()
-                .stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(users);
+    public ResponseEntity<Page<UserDto>> getAllUsers(@PageableDefault(size = 50, sort = "id") Pageable pageable) {
+        return ResponseEntity.ok(userService.getAllUsers(pageable).map(this::toDto));
+    }
+
+    // Полная выгрузка потоком: память не зависит от числа пользователей
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(defaultValue = "NDJSON") UserExportFormat format) {
+        StreamingResponseBody body = out -> userExportService.export(format, out);
+        return ResponseEntity.ok()
+                .contentType(format.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=users." + format.extension())
+                .body(body);
     }
 
     @GetMapping("/{id}")
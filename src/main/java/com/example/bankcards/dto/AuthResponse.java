@@ -0,0 +1,17 @@
+package com.example.bankcards.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuthResponse {
+    private String token;
+    // Одноразовый: POST /api/auth/refresh возвращает новую пару токенов
+    private String refreshToken;
+    private String tokenType;
+    // Срок действия access-токена в секундах
+    private long expiresIn;
+}
@@ -0,0 +1,27 @@
+package com.example.bankcards.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchTransferRequest {
+
+    @NotEmpty(message = "Список переводов не должен быть пустым")
+    @Size(max = 1000, message = "Не более 1000 переводов в одном пакете")
+    private List<@Valid @NotNull TransferRequest> transfers;
+
+    @NotNull
+    private Atomicity atomicity = Atomicity.ALL_OR_NOTHING;
+
+    public enum Atomicity {
+        // Любая ошибка откатывает весь пакет
+        ALL_OR_NOTHING,
+        // Ошибочные переводы пропускаются, остальные применяются
+        PER_ITEM
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.bankcards.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class BatchTransferResult {
+
+    private int succeeded;
+    private int failed;
+    private List<Item> items = new ArrayList<>();
+
+    public void addSuccess(int index, TransferRequest request) {
+        succeeded++;
+        items.add(new Item(index, request.getFromCard(), request.getToCard(), request.getAmount(), Status.SUCCESS, null));
+    }
+
+    public void addFailure(int index, TransferRequest request, String error) {
+        failed++;
+        items.add(new Item(index, request.getFromCard(), request.getToCard(), request.getAmount(), Status.FAILED, error));
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private int index;
+        private Long fromCard;
+        private Long toCard;
+        private BigDecimal amount;
+        private Status status;
+        private String error;
+    }
+
+    public enum Status {
+        SUCCESS, FAILED
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.CardStatus;
+
+import java.time.LocalDate;
+
+/**
+ * Редко меняющиеся данные карты для кэша; баланс сюда намеренно не входит.
+ */
+public record CardMetadata(Long id,
+                           String maskedNumber,
+                           Long ownerId,
+                           String ownerName,
+                           LocalDate expirationDate,
+                           CardStatus status) {
+}
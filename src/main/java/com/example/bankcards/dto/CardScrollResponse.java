@@ -0,0 +1,17 @@
+package com.example.bankcards.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardScrollResponse {
+    private List<CardDto> content;
+    // Передаётся в параметре cursor для получения следующей страницы; null - страниц больше нет
+    private String nextCursor;
+    private boolean hasNext;
+}
@@ -0,0 +1,18 @@
+package com.example.bankcards.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+// Конструктор используется в агрегирующих запросах UserCardSummaryRepository - порядок полей важен
+@AllArgsConstructor
+public class CardSummaryDto {
+    private BigDecimal totalBalance;
+    private long cardCount;
+    private long activeCount;
+    private long blockedCount;
+}
@@ -0,0 +1,22 @@
+package com.example.bankcards.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+// Конструктор используется в проекции CardTransactionRepository - порядок полей важен
+@AllArgsConstructor
+public class CardTransactionDto {
+    private Long id;
+    private Long transferId;
+    private Long counterpartyCardId;
+    // Изменение баланса: отрицательное - списание (вместе с комиссией), положительное - зачисление
+    private BigDecimal amount;
+    private BigDecimal commission;
+    private Instant createdAt;
+}
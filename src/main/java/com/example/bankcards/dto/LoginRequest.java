@@ -0,0 +1,14 @@
+package com.example.bankcards.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+public class LoginRequest {
+
+    @NotBlank(message = "Логин обязателен")
+    private String username;
+
+    @NotBlank(message = "Пароль обязателен")
+    private String password;
+}
@@ -0,0 +1,16 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+// Конструктор используется в проекции UserRepository.streamForExport - порядок полей важен
+@AllArgsConstructor
+public class UserExportRow {
+    private Long id;
+    private String username;
+    private User.Role role;
+}
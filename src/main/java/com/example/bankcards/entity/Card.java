@@ -38,6 +38,9 @@ public class Card {
     @Column(nullable = false)
     private BigDecimal balance;
 
+    @Version
+    private Long version;
+
     public boolean isActive() {
         return status == CardStatus.ACTIVE;
     }
@@ -0,0 +1,51 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Проводка по одной карте: каждый перевод даёт списание с карты отправителя и зачисление на карту получателя.
+ * История карты читается из этой таблицы одним диапазоном индекса по card_id.
+ */
+@Entity
+@Immutable
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+// Индекс объявлен и здесь, чтобы схема из ddl-auto (H2 в тестах) совпадала с миграцией; INCLUDE - только в миграции
+@Table(name = "card_transactions", indexes = @Index(
+        name = "idx_card_transactions_history", columnList = "card_id, created_at desc, id desc"))
+public class CardTransaction {
+
+    // Как у Transfer: шаг последовательности 50, вставки уходят пакетом
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "card_transactions_seq")
+    @SequenceGenerator(name = "card_transactions_seq", sequenceName = "card_transactions_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "card_id", nullable = false, updatable = false)
+    private Long cardId;
+
+    @Column(name = "counterparty_card_id", nullable = false, updatable = false)
+    private Long counterpartyCardId;
+
+    @Column(name = "transfer_id", nullable = false, updatable = false)
+    private Long transferId;
+
+    // Изменение баланса карты: списание с комиссией - отрицательное, зачисление - положительное
+    @Column(nullable = false, updatable = false)
+    private BigDecimal amount;
+
+    @Column(nullable = false, updatable = false)
+    private BigDecimal commission;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,52 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.Instant;
+
+/**
+ * Ключ идемпотентности запроса перевода и сохранённый ответ.
+ * Пока перевод выполняется, responseStatus пуст; повтор с тем же ключом получает сохранённый ответ.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+// Ограничения объявлены и здесь, чтобы схема из ddl-auto (H2 в тестах) совпадала с миграцией
+@Table(name = "idempotency_keys",
+        uniqueConstraints = @UniqueConstraint(name = "uq_idempotency_keys_user_key", columnNames = {"user_id", "idempotency_key"}),
+        indexes = @Index(name = "idx_idempotency_keys_created_at", columnList = "created_at"))
+public class IdempotencyRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false, updatable = false)
+    private Long userId;
+
+    @Column(name = "idempotency_key", nullable = false, updatable = false)
+    private String idempotencyKey;
+
+    // SHA-256 операции и тела запроса: тот же ключ с другим запросом отклоняется
+    @Column(name = "request_hash", nullable = false, updatable = false, length = 64)
+    private String requestHash;
+
+    @Column(name = "response_status")
+    private Integer responseStatus;
+
+    @Column(name = "response_body", columnDefinition = "TEXT")
+    private String responseBody;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    public boolean isCompleted() {
+        return responseStatus != null;
+    }
+}
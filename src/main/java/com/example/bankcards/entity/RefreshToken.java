@@ -0,0 +1,52 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.Instant;
+
+/**
+ * Refresh-токен пользователя. Хранится только SHA-256 значения: утечка таблицы не даёт выпустить access-токен.
+ * Токен одноразовый - при обмене помечается использованным и заменяется новым.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+// Ограничения объявлены и здесь, чтобы схема из ddl-auto (H2 в тестах) совпадала с миграцией
+@Table(name = "refresh_tokens",
+        uniqueConstraints = @UniqueConstraint(name = "uq_refresh_tokens_token_hash", columnNames = "token_hash"),
+        indexes = {
+                @Index(name = "idx_refresh_tokens_user_id", columnList = "user_id"),
+                @Index(name = "idx_refresh_tokens_expires_at", columnList = "expires_at")
+        })
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false, updatable = false)
+    private Long userId;
+
+    @Column(name = "token_hash", nullable = false, updatable = false, length = 64)
+    private String tokenHash;
+
+    // Версия токенов пользователя на момент выдачи: смена пароля или роли отзывает и refresh-токены
+    @Column(name = "token_version", nullable = false, updatable = false)
+    private int tokenVersion;
+
+    @Column(name = "expires_at", nullable = false, updatable = false)
+    private Instant expiresAt;
+
+    // Заполняется при обмене на новый токен или выходе
+    @Column(name = "revoked_at")
+    private Instant revokedAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+}
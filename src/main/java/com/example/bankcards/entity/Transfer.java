@@ -0,0 +1,45 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Запись журнала переводов. Журнал только дополняется: строки не изменяются и не удаляются вместе с картами.
+ */
+@Entity
+@Immutable
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "transfers")
+public class Transfer {
+
+    // Последовательность с шагом 50: id выдаются без обращения к БД на каждую запись,
+    // поэтому вставки уходят JDBC-пакетом (с IDENTITY Hibernate пакетную вставку отключает)
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transfers_seq")
+    @SequenceGenerator(name = "transfers_seq", sequenceName = "transfers_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "from_card_id", nullable = false, updatable = false)
+    private Long fromCardId;
+
+    @Column(name = "to_card_id", nullable = false, updatable = false)
+    private Long toCardId;
+
+    @Column(nullable = false, updatable = false)
+    private BigDecimal amount;
+
+    @Column(nullable = false, updatable = false)
+    private BigDecimal commission;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+}
@@ -2,6 +2,8 @@ package com.example.bankcards.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
@@ -12,6 +14,9 @@ import java.util.List;
 @AllArgsConstructor
 @Builder
 @Table(name = "users")
+// Второй уровень кэша: findById и сущности из кэшированных запросов по логину без обращения к БД
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
 public class User {
 
     @Id
@@ -27,9 +32,18 @@ public class User {
     @Enumerated(EnumType.STRING)
     private Role role;
 
+    // Увеличивается при смене логина, пароля или роли - выданные ранее токены перестают приниматься
+    @Builder.Default
+    @Column(name = "token_version", nullable = false)
+    private int tokenVersion = 0;
+
     @OneToMany(mappedBy = "owner", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Card> cards;
 
+    public void incrementTokenVersion() {
+        tokenVersion++;
+    }
+
     public enum Role {
         USER, ADMIN
     }
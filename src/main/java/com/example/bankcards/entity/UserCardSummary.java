@@ -0,0 +1,36 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Сводка по картам пользователя: общий баланс и число карт по статусам.
+ * Поддерживается приращениями при изменении карт и переводах, сверяется с cards по расписанию.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "user_card_summary")
+public class UserCardSummary {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "total_balance", nullable = false)
+    private BigDecimal totalBalance;
+
+    @Column(name = "card_count", nullable = false)
+    private long cardCount;
+
+    @Column(name = "active_count", nullable = false)
+    private long activeCount;
+
+    @Column(name = "blocked_count", nullable = false)
+    private long blockedCount;
+}
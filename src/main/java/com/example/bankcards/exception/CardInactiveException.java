@@ -0,0 +1,7 @@
+package com.example.bankcards.exception;
+
+public class CardInactiveException extends ResourceNotFoundException {
+    public CardInactiveException(Long cardId) {
+        super("Карта " + cardId + " неактивна или заблокирована");
+    }
+}
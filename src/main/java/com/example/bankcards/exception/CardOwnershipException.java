@@ -0,0 +1,7 @@
+package com.example.bankcards.exception;
+
+public class CardOwnershipException extends BusinessLogicException {
+    public CardOwnershipException() {
+        super("Вы можете переводить только между своими картами");
+    }
+}
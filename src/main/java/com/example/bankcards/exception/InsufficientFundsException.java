@@ -0,0 +1,7 @@
+package com.example.bankcards.exception;
+
+public class InsufficientFundsException extends BusinessLogicException {
+    public InsufficientFundsException() {
+        super("Недостаточно средств для перевода");
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.bankcards.exception;
+
+public class PasswordHashingOverloadedException extends RuntimeException {
+    public PasswordHashingOverloadedException() {
+        super("Сервис аутентификации перегружен, повторите запрос позже");
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.exception.BusinessLogicException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+/**
+ * Позиция для keyset-пагинации карт: значение ключа сортировки и id последней карты страницы.
+ * Клиенту передаётся в виде непрозрачной строки base64url.
+ */
+public record CardCursor(SortKey sortKey, Comparable<?> lastValue, Long lastId) {
+
+    private static final String SEPARATOR = "|";
+
+    public enum SortKey {
+        ID("id"),
+        EXPIRATION_DATE("expirationDate");
+
+        private final String property;
+
+        SortKey(String property) {
+            this.property = property;
+        }
+
+        public String property() {
+            return property;
+        }
+
+        Comparable<?> valueOf(CardDto card) {
+            return this == ID ? card.getId() : card.getExpirationDate();
+        }
+
+        Comparable<?> parse(String value) {
+            return this == ID ? Long.valueOf(value) : LocalDate.parse(value);
+        }
+    }
+
+    public static CardCursor after(SortKey sortKey, CardDto lastCard) {
+        return new CardCursor(sortKey, sortKey.valueOf(lastCard), lastCard.getId());
+    }
+
+    public String encode() {
+        String raw = sortKey.name() + SEPARATOR + lastValue + SEPARATOR + lastId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CardCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            SortKey sortKey = SortKey.valueOf(parts[0]);
+            return new CardCursor(sortKey, sortKey.parse(parts[1]), Long.valueOf(parts[2]));
+        } catch (RuntimeException e) {
+            throw new BusinessLogicException("Некорректный курсор пагинации");
+        }
+    }
+}
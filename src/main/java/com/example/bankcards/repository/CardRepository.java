@@ -1,19 +1,55 @@
 package com.example.bankcards.repository;
 
+import com.example.bankcards.dto.CardMetadata;
 import com.example.bankcards.entity.Card;
-import com.example.bankcards.entity.User;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface CardRepository extends JpaRepository<Card, Long> {
+public interface CardRepository extends JpaRepository<Card, Long>, JpaSpecificationExecutor<Card>, CardViewRepository {
 
-    Page<Card> findByOwner(User owner, Pageable pageable);
+    Optional<Card> findByMaskedNumber(String maskedNumber);
 
-    Optional<Card> findByNumber(String number);
+    boolean existsByMaskedNumber(String maskedNumber);
 
-    boolean existsByNumber(String number);
+    @Query("select new com.example.bankcards.dto.CardMetadata(c.id, c.maskedNumber, o.id, o.username, c.expirationDate, c.status) " +
+            "from Card c join c.owner o where c.id = :id")
+    Optional<CardMetadata> findMetadataById(@Param("id") Long id);
+
+    // Баланс читается отдельно от кэшируемых метаданных - всегда актуальное значение из БД
+    @Query("select c.balance from Card c where c.id = :id")
+    Optional<BigDecimal> findBalanceById(@Param("id") Long id);
+
+    // SELECT ... FOR UPDATE: блокировка строки карты до конца транзакции
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Card c where c.id = :id")
+    Optional<Card> findByIdForUpdate(@Param("id") Long id);
+
+    // Блокировка набора карт одним запросом; ORDER BY id задаёт единый порядок захвата блокировок
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Card c where c.id in :ids order by c.id")
+    List<Card> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    // Списание одним UPDATE: 0 строк - карта не найдена, чужая, неактивна или средств недостаточно
+    @Modifying
+    @Query("update Card c set c.balance = c.balance - :amount, c.version = c.version + 1 " +
+            "where c.id = :id and c.status = com.example.bankcards.entity.CardStatus.ACTIVE " +
+            "and c.balance >= :amount and (:ownerId is null or c.owner.id = :ownerId)")
+    int debitIfSufficient(@Param("id") Long id, @Param("amount") BigDecimal amount, @Param("ownerId") Long ownerId);
+
+    // Зачисление одним UPDATE: 0 строк - карта не найдена, чужая или неактивна
+    @Modifying
+    @Query("update Card c set c.balance = c.balance + :amount, c.version = c.version + 1 " +
+            "where c.id = :id and c.status = com.example.bankcards.entity.CardStatus.ACTIVE " +
+            "and (:ownerId is null or c.owner.id = :ownerId)")
+    int creditIfActive(@Param("id") Long id, @Param("amount") BigDecimal amount, @Param("ownerId") Long ownerId);
 }
\ No newline at end of file
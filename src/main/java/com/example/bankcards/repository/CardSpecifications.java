@@ -0,0 +1,60 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import jakarta.persistence.criteria.Path;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+
+/**
+ * Условия выборки карт для {@link CardRepository}; незаданный фильтр (null) не добавляет условия.
+ * Порядок условий совпадает с индексом idx_cards_owner_status_balance (owner_id, status, balance).
+ */
+public final class CardSpecifications {
+
+    private CardSpecifications() {
+    }
+
+    public static Specification<Card> filter(Long ownerId, CardStatus status, BigDecimal minBalance, BigDecimal maxBalance) {
+        return Specification.where(ownedBy(ownerId))
+                .and(hasStatus(status))
+                .and(balanceAtLeast(minBalance))
+                .and(balanceAtMost(maxBalance));
+    }
+
+    // Карты строго после позиции курсора в порядке (ключ сортировки, id)
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<Card> after(CardCursor cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        if (cursor.sortKey() == CardCursor.SortKey.ID) {
+            return (root, query, cb) -> cb.greaterThan(root.get("id"), cursor.lastId());
+        }
+        return (root, query, cb) -> {
+            Path<Comparable> key = root.get(cursor.sortKey().property());
+            Comparable value = cursor.lastValue();
+            return cb.or(
+                    cb.greaterThan(key, value),
+                    cb.and(cb.equal(key, value), cb.greaterThan(root.get("id"), cursor.lastId()))
+            );
+        };
+    }
+
+    public static Specification<Card> ownedBy(Long ownerId) {
+        return ownerId == null ? null : (root, query, cb) -> cb.equal(root.get("owner").get("id"), ownerId);
+    }
+
+    public static Specification<Card> hasStatus(CardStatus status) {
+        return status == null ? null : (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+
+    public static Specification<Card> balanceAtLeast(BigDecimal minBalance) {
+        return minBalance == null ? null : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("balance"), minBalance);
+    }
+
+    public static Specification<Card> balanceAtMost(BigDecimal maxBalance) {
+        return maxBalance == null ? null : (root, query, cb) -> cb.lessThanOrEqualTo(root.get("balance"), maxBalance);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.CardTransactionDto;
+import com.example.bankcards.entity.CardTransaction;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface CardTransactionRepository extends JpaRepository<CardTransaction, Long> {
+
+    // Страница истории одним проходом по индексу (card_id, created_at DESC, id DESC):
+    // сравнение пар задаёт начало диапазона, порядок совпадает с индексом - без сортировки и без COUNT.
+    // Все выбираемые колонки есть в индексе (INCLUDE), поэтому в PostgreSQL это index-only scan
+    @Query("""
+            select new com.example.bankcards.dto.CardTransactionDto(
+                t.id, t.transferId, t.counterpartyCardId, t.amount, t.commission, t.createdAt)
+            from CardTransaction t
+            where t.cardId = :cardId
+              and t.createdAt >= :from
+              and (t.createdAt, t.id) < (:beforeCreatedAt, :beforeId)
+            order by t.createdAt desc, t.id desc
+            """)
+    List<CardTransactionDto> findHistory(@Param("cardId") Long cardId,
+                                         @Param("from") Instant from,
+                                         @Param("beforeCreatedAt") Instant beforeCreatedAt,
+                                         @Param("beforeId") Long beforeId,
+                                         Limit limit);
+}
@@ -0,0 +1,21 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.entity.Card;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Чтение карт сразу в {@link CardDto} одним запросом с join на владельца,
+ * без загрузки управляемых сущностей.
+ */
+public interface CardViewRepository {
+
+    Page<CardDto> findViews(Specification<Card> spec, Pageable pageable);
+
+    List<CardDto> findViews(Specification<Card> spec, Sort sort, int limit);
+}
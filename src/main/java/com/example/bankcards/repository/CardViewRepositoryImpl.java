@@ -0,0 +1,81 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.List;
+
+class CardViewRepositoryImpl implements CardViewRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<CardDto> findViews(Specification<Card> spec, Pageable pageable) {
+        TypedQuery<CardDto> query = entityManager.createQuery(viewQuery(spec, pageable.getSort()));
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        // COUNT выполняется только если по содержимому страницы итог посчитать нельзя
+        return PageableExecutionUtils.getPage(query.getResultList(), pageable, () -> count(spec));
+    }
+
+    @Override
+    public List<CardDto> findViews(Specification<Card> spec, Sort sort, int limit) {
+        return entityManager.createQuery(viewQuery(spec, sort))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private CriteriaQuery<CardDto> viewQuery(Specification<Card> spec, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<CardDto> query = cb.createQuery(CardDto.class);
+        Root<Card> card = query.from(Card.class);
+        Join<Card, User> owner = card.join("owner");
+
+        query.select(cb.construct(CardDto.class,
+                card.get("id"),
+                card.get("maskedNumber"),
+                owner.get("username"),
+                card.get("expirationDate"),
+                card.get("status"),
+                card.get("balance")));
+        where(query, card, cb, spec);
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, card, cb));
+        }
+        return query;
+    }
+
+    private long count(Specification<Card> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Card> card = query.from(Card.class);
+        query.select(cb.count(card));
+        where(query, card, cb, spec);
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static void where(CriteriaQuery<?> query, Root<Card> card, CriteriaBuilder cb, Specification<Card> spec) {
+        Predicate predicate = spec == null ? null : spec.toPredicate(card, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+    }
+}
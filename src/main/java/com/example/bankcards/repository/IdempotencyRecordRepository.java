@@ -0,0 +1,36 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.IdempotencyRecord;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    Optional<IdempotencyRecord> findByUserIdAndIdempotencyKey(Long userId, String idempotencyKey);
+
+    @Transactional
+    @Modifying
+    @Query("update IdempotencyRecord r set r.responseStatus = :status, r.responseBody = :body where r.id = :id")
+    void complete(@Param("id") Long id, @Param("status") int status, @Param("body") String body);
+
+    // Удаление устаревших завершённых ключей порциями по индексу created_at: каждая порция - короткая транзакция.
+    // Незавершённый резерв не удаляется: перевод мог зафиксироваться до падения процесса, не успев записать ответ
+    @Transactional
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "idempotency_keys"))
+    @Modifying
+    @Query(value = """
+            delete from idempotency_keys
+            where id in (select id from idempotency_keys where created_at < :cutoff and response_status is not null order by created_at limit :limit)
+            """, nativeQuery = true)
+    int deleteCompletedBefore(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+}
@@ -0,0 +1,20 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.CardSummaryDto;
+
+import java.math.BigDecimal;
+
+/**
+ * Итоги по картам одного владельца, посчитанные по cards.
+ */
+public record OwnerCardTotals(Long ownerId, BigDecimal totalBalance, long cardCount, long activeCount, long blockedCount) {
+
+    // Владелец без карт в результат GROUP BY не попадает
+    public static OwnerCardTotals empty(Long ownerId) {
+        return new OwnerCardTotals(ownerId, BigDecimal.ZERO, 0, 0, 0);
+    }
+
+    public CardSummaryDto toDto() {
+        return new CardSummaryDto(totalBalance, cardCount, activeCount, blockedCount);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.CardTransactionDto;
+import com.example.bankcards.exception.BusinessLogicException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Позиция в истории операций карты: время и id последней проводки страницы.
+ * Следующая страница начинается строго ниже этой пары; клиенту передаётся строкой base64url.
+ */
+public record TransactionCursor(Instant createdAt, Long id) {
+
+    private static final String SEPARATOR = "|";
+
+    public static TransactionCursor after(CardTransactionDto lastTransaction) {
+        return new TransactionCursor(lastTransaction.getCreatedAt(), lastTransaction.getId());
+    }
+
+    // Верхняя граница первой страницы: все проводки строго раньше upperBound (id положительные)
+    public static TransactionCursor before(Instant upperBound) {
+        return new TransactionCursor(upperBound, 0L);
+    }
+
+    public String encode() {
+        String raw = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TransactionCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 2);
+            return new TransactionCursor(Instant.parse(parts[0]), Long.valueOf(parts[1]));
+        } catch (RuntimeException e) {
+            throw new BusinessLogicException("Некорректный курсор пагинации");
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.CardSummaryDto;
+import com.example.bankcards.entity.UserCardSummary;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES;
+
+public interface UserCardSummaryRepository extends JpaRepository<UserCardSummary, Long> {
+
+    // Приращение одним UPDATE без чтения строки; 0 - строки ещё нет.
+    // Изменения карт сбрасываются в БД до UPDATE сводки: строки карт блокируются раньше строки сводки
+    @Modifying(flushAutomatically = true)
+    @Query("update UserCardSummary s set s.totalBalance = s.totalBalance + :balance, " +
+            "s.cardCount = s.cardCount + :cards, s.activeCount = s.activeCount + :active, " +
+            "s.blockedCount = s.blockedCount + :blocked where s.userId = :userId")
+    int applyDelta(@Param("userId") Long userId, @Param("balance") BigDecimal balance, @Param("cards") long cards,
+                    @Param("active") long active, @Param("blocked") long blocked);
+
+    // Создание строки по текущему состоянию cards, включая изменения карт текущей транзакции;
+    // при одновременном создании побеждает первая вставка, остальные ждут её коммита и получают 0
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "user_card_summary"))
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            insert into user_card_summary (user_id, total_balance, card_count, active_count, blocked_count)
+            select :userId, coalesce(sum(c.balance), 0), count(c.id),
+                   coalesce(sum(case when c.status = 'ACTIVE' then 1 else 0 end), 0),
+                   coalesce(sum(case when c.status = 'BLOCKED' then 1 else 0 end), 0)
+            from cards c
+            where c.owner_id = :userId
+            on conflict do nothing
+            """, nativeQuery = true)
+    int insertFromCards(@Param("userId") Long userId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from UserCardSummary s where s.userId = :userId")
+    Optional<UserCardSummary> findByIdForUpdate(@Param("userId") Long userId);
+
+    // Страница сводок для сверки, по возрастанию user_id
+    List<UserCardSummary> findByUserIdGreaterThanOrderByUserId(Long userId, Limit limit);
+
+    // Фактические итоги по cards для одного пользователя
+    @Query("""
+            select new com.example.bankcards.dto.CardSummaryDto(
+                coalesce(sum(c.balance), 0), count(c),
+                coalesce(sum(case when c.status = com.example.bankcards.entity.CardStatus.ACTIVE then 1 else 0 end), 0),
+                coalesce(sum(case when c.status = com.example.bankcards.entity.CardStatus.BLOCKED then 1 else 0 end), 0))
+            from Card c
+            where c.owner.id = :userId
+            """)
+    CardSummaryDto aggregateCards(@Param("userId") Long userId);
+
+    // Фактические итоги по cards для пачки пользователей одним GROUP BY; пользователи без карт в ответ не попадают
+    @Query("""
+            select new com.example.bankcards.repository.OwnerCardTotals(
+                c.owner.id, coalesce(sum(c.balance), 0), count(c),
+                coalesce(sum(case when c.status = com.example.bankcards.entity.CardStatus.ACTIVE then 1 else 0 end), 0),
+                coalesce(sum(case when c.status = com.example.bankcards.entity.CardStatus.BLOCKED then 1 else 0 end), 0))
+            from Card c
+            where c.owner.id in :userIds
+            group by c.owner.id
+            """)
+    List<OwnerCardTotals> aggregateCardsByOwner(@Param("userIds") Collection<Long> userIds);
+}
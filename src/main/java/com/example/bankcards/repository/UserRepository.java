@@ -1,17 +1,56 @@
 package com.example.bankcards.repository;
 
+import com.example.bankcards.dto.UserExportRow;
 import com.example.bankcards.entity.User;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+import static org.hibernate.jpa.SpecHints.HINT_SPEC_CACHE_RETRIEVE_MODE;
 
 public interface UserRepository extends JpaRepository<User, Long> {
 
+    // Кэш запросов: id по логину; любое изменение таблицы users через Hibernate делает результат устаревшим
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<User> findByUsername(String username);
 
-    Optional<User> findByEmail(String email);
-
     boolean existsByUsername(String username);
 
-    boolean existsByEmail(String email);
+    // Пользователь для аутентификации, выдачи токенов и смены версии токенов - всегда из БД, мимо второго уровня кэша.
+    // Регион users у каждого экземпляра свой: роль или версию токенов, изменённые на другом узле, он отдаст
+    // до истечения записи, а сверху ещё лежит UserPrincipalCache
+    @QueryHints(@QueryHint(name = HINT_SPEC_CACHE_RETRIEVE_MODE, value = "BYPASS"))
+    @Query("select u from User u where u.username = :username")
+    Optional<User> findUncachedByUsername(String username);
+
+    @QueryHints(@QueryHint(name = HINT_SPEC_CACHE_RETRIEVE_MODE, value = "BYPASS"))
+    @Query("select u from User u where u.id = :id")
+    Optional<User> findUncachedById(Long id);
+
+    @Query("select u.tokenVersion from User u where u.id = :id")
+    Optional<Integer> findTokenVersionById(Long id);
+
+    // Замена хеша пароля без смены версии токенов: пароль тот же, меняется только стоимость хеша
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :password where u.username = :username")
+    int updatePassword(String username, String password);
+
+    // Однонаправленный курсор для выгрузки: строки приходят порциями по fetch size, сущности не создаются.
+    // Поток нужно закрыть и читать внутри транзакции
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.example.bankcards.dto.UserExportRow(u.id, u.username, u.role) from User u order by u.id")
+    Stream<UserExportRow> streamForExport();
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.example.bankcards.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+
+/**
+ * Подбор стоимости BCrypt под железо: самая высокая стоимость, при которой один хеш укладывается в target.
+ * Каждая единица стоимости удваивает время, поэтому достаточно замерить минимальную.
+ */
+public final class BcryptCostCalibrator {
+
+    private static final String SAMPLE = "calibration-password";
+
+    private BcryptCostCalibrator() {
+    }
+
+    public static int calibrate(Duration target, int minStrength, int maxStrength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(minStrength);
+        // Первый вызов прогревает JIT и заметно дольше следующих
+        encoder.encode(SAMPLE);
+        long started = System.nanoTime();
+        encoder.encode(SAMPLE);
+        long nanos = Math.max(System.nanoTime() - started, 1);
+
+        int strength = minStrength;
+        while (strength < maxStrength && nanos * 2 <= target.toNanos()) {
+            nanos *= 2;
+            strength++;
+        }
+        return strength;
+    }
+}
@@ -1,21 +1,48 @@
 package com.example.bankcards.security;
 
 import com.example.bankcards.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
+    // Не readOnly и мимо второго уровня кэша: результат живёт в UserPrincipalCache, и версия токенов или пароль
+    // с отстающей реплики или из кэша этого узла продолжили бы приниматься весь срок записи
     @Override
-    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return (UserDetails) userRepository.findByUsername(username)
+    @Timed("bankcards.user.lookup")
+    @Transactional
+    public UserPrincipal loadUserByUsername(String username) throws UsernameNotFoundException {
+        return userRepository.findUncachedByUsername(username)
+                .map(UserPrincipal::create)
                 .orElseThrow(() -> new UsernameNotFoundException("Пользователь не найден: " + username));
     }
+
+    // Текущая версия токенов пользователя для режима stateless-claims; пусто - пользователь удалён.
+    // Не readOnly: читается основная БД, реплика может ещё не видеть отзыв токенов
+    @Transactional
+    public Optional<Integer> currentTokenVersion(Long userId) {
+        return userRepository.findTokenVersionById(userId);
+    }
+
+    // Вызывается DaoAuthenticationProvider после успешного входа, если хеш посчитан с устаревшей стоимостью.
+    // Выданные токены остаются действительными
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePassword(user.getUsername(), newPassword);
+        UserPrincipal principal = (UserPrincipal) user;
+        return new UserPrincipal(principal.getId(), principal.getUsername(), newPassword,
+                principal.getAuthorities(), principal.getTokenVersion());
+    }
 }
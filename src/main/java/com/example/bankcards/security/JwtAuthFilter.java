@@ -1,14 +1,18 @@
 package com.example.bankcards.security;
 
 import com.example.bankcards.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -21,6 +25,13 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final CustomUserDetailsService userDetailsService;
+    private final UserPrincipalCache principalCache;
+    private final TokenVersionCache tokenVersionCache;
+    private final MeterRegistry meterRegistry;
+
+    // Режим без загрузки пользователя: он собирается из claims токена, в БД сверяется только версия токенов
+    @Value("${jwt.stateless-claims:false}")
+    private boolean statelessClaims;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -29,7 +40,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
-        final String username;
+        final Claims claims;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
@@ -37,24 +48,59 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         }
 
         jwt = authHeader.substring(7);
-        username = jwtUtil.extractUsername(jwt);
+
+        // Подпись и срок действия проверяются одним разбором токена
+        Timer.Sample verification = Timer.start(meterRegistry);
+        try {
+            claims = jwtUtil.parseClaims(jwt);
+            verification.stop(meterRegistry.timer("bankcards.jwt.verify", "outcome", "valid"));
+        } catch (JwtException | IllegalArgumentException e) {
+            verification.stop(meterRegistry.timer("bankcards.jwt.verify", "outcome", "invalid"));
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        final String username = claims.getSubject();
 
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-
-            if (jwtUtil.validateToken(jwt, userDetails.getUsername())) {
-                UsernamePasswordAuthenticationToken authToken =
-                        new UsernamePasswordAuthenticationToken(
-                                userDetails,
-                                null,
-                                userDetails.getAuthorities()
-                        );
-
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
+            UserPrincipal userDetails = resolvePrincipal(username, claims);
+            if (userDetails == null) {
+                filterChain.doFilter(request, response);
+                return;
             }
+
+            UsernamePasswordAuthenticationToken authToken =
+                    new UsernamePasswordAuthenticationToken(
+                            userDetails,
+                            null,
+                            userDetails.getAuthorities()
+                    );
+
+            authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authToken);
         }
 
         filterChain.doFilter(request, response);
     }
+
+    private UserPrincipal resolvePrincipal(String username, Claims claims) {
+        if (statelessClaims) {
+            UserPrincipal fromClaims = UserPrincipal.fromClaims(claims);
+            if (fromClaims != null && fromClaims.getTokenVersion() != null) {
+                // Пользователь удалён или сменил логин, пароль или роль после выдачи токена - не принимаем
+                return tokenVersionCache.isCurrent(fromClaims.getId(), fromClaims.getTokenVersion(),
+                        userDetailsService::currentTokenVersion) ? fromClaims : null;
+            }
+        }
+
+        UserPrincipal principal = principalCache.get(username, userDetailsService::loadUserByUsername);
+
+        // Токен выдан до смены логина, пароля или роли - не принимаем
+        Integer tokenVersion = claims.get(JwtUtil.CLAIM_TOKEN_VERSION, Integer.class);
+        if (tokenVersion != null && principal.getTokenVersion() != null
+                && !tokenVersion.equals(principal.getTokenVersion())) {
+            return null;
+        }
+        return principal;
+    }
 }
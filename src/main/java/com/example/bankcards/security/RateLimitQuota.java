@@ -0,0 +1,69 @@
+package com.example.bankcards.security;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Квота маршрута: capacity запросов подряд, дальше - capacity запросов за period.
+ * Задаётся строкой {@code [METHOD ]шаблон=capacity/period}, например {@code POST /api/cards/transfer/**=20/PT1S}.
+ *
+ * @param route  имя маршрута в метриках и ключах ведер - исходный шаблон, а не URI, чтобы id в пути не плодили ключи
+ * @param method null - любой метод
+ */
+public record RateLimitQuota(String route, HttpMethod method, PathPattern pattern, int capacity, Duration period) {
+
+    public RateLimitQuota {
+        if (capacity < 1 || period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException("Квота маршрута " + route + " должна быть положительной");
+        }
+    }
+
+    public static List<RateLimitQuota> parseAll(String spec) {
+        List<RateLimitQuota> quotas = new ArrayList<>();
+        if (spec == null || spec.isBlank()) {
+            return quotas;
+        }
+        for (String entry : spec.split(",")) {
+            quotas.add(parse(entry.trim()));
+        }
+        return quotas;
+    }
+
+    public static RateLimitQuota parse(String entry) {
+        int eq = entry.lastIndexOf('=');
+        if (eq < 0) {
+            throw new IllegalArgumentException("Квота задаётся как [METHOD ]шаблон=capacity/period: " + entry);
+        }
+        String route = entry.substring(0, eq).trim();
+        String[] limit = entry.substring(eq + 1).trim().split("/", 2);
+        if (limit.length != 2) {
+            throw new IllegalArgumentException("Квота задаётся как [METHOD ]шаблон=capacity/period: " + entry);
+        }
+
+        String[] target = route.split("\\s+", 2);
+        HttpMethod method = target.length == 2 ? HttpMethod.valueOf(target[0]) : null;
+        String path = target.length == 2 ? target[1] : target[0];
+        return new RateLimitQuota(route, method, PathPatternParser.defaultInstance.parse(path),
+                Integer.parseInt(limit[0].trim()), Duration.parse(limit[1].trim()));
+    }
+
+    // Квота для всех запросов, не попавших в маршруты
+    public static RateLimitQuota fallback(String limit) {
+        return parse("/**=" + limit);
+    }
+
+    public boolean matches(String method, PathContainer path) {
+        return (this.method == null || this.method.matches(method)) && pattern.matches(path);
+    }
+
+    // Интервал между запросами при равномерной нагрузке
+    long emissionIntervalNanos() {
+        return period.toNanos() / capacity;
+    }
+}
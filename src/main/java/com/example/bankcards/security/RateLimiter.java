@@ -0,0 +1,138 @@
+package com.example.bankcards.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Ограничение частоты запросов пользователя по маршрутам.
+ * <p>
+ * Ведро маркеров на пару (пользователь, маршрут) хранится одним числом - теоретическим временем следующего
+ * запроса (GCRA): запрос проходит, если это время не ушло вперёд больше чем на capacity интервалов.
+ * Обновление - один CAS без блокировок. Ведра лежат в Caffeine с ограничением размера и удаляются после
+ * idle-timeout без запросов: за это время ведро наполняется целиком, поэтому удаление не меняет решений.
+ */
+@Component
+public class RateLimiter implements MeterBinder {
+
+    private final List<Route> routes;
+    private final Route fallback;
+    private final Cache<BucketKey, AtomicLong> buckets;
+    private final LongSupplier clock;
+
+    private record BucketKey(Long userId, Route route) {
+    }
+
+    private static final class Route {
+        private final RateLimitQuota quota;
+        private final long interval;
+        private final long tolerance;
+        private final LongAdder allowed = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+
+        private Route(RateLimitQuota quota) {
+            this.quota = quota;
+            this.interval = quota.emissionIntervalNanos();
+            this.tolerance = interval * quota.capacity();
+        }
+    }
+
+    @Autowired
+    public RateLimiter(@Value("${rate-limit.quotas:}") String quotas,
+                       @Value("${rate-limit.default-quota:100/PT1S}") String defaultQuota,
+                       @Value("${rate-limit.max-keys:100000}") long maxKeys,
+                       @Value("${rate-limit.idle-timeout:PT10M}") Duration idleTimeout) {
+        this(RateLimitQuota.parseAll(quotas), RateLimitQuota.fallback(defaultQuota), maxKeys, idleTimeout, System::nanoTime);
+    }
+
+    RateLimiter(List<RateLimitQuota> quotas, RateLimitQuota defaultQuota, long maxKeys, Duration idleTimeout,
+                LongSupplier clock) {
+        List<Route> configured = new ArrayList<>();
+        Duration longestPeriod = defaultQuota.period();
+        for (RateLimitQuota quota : quotas) {
+            configured.add(new Route(quota));
+            longestPeriod = quota.period().compareTo(longestPeriod) > 0 ? quota.period() : longestPeriod;
+        }
+        if (idleTimeout.compareTo(longestPeriod) < 0) {
+            throw new IllegalArgumentException("rate-limit.idle-timeout должен быть не меньше периода самой длинной квоты " + longestPeriod);
+        }
+
+        this.routes = List.copyOf(configured);
+        this.fallback = new Route(defaultQuota);
+        this.clock = clock;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(idleTimeout)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Списывает маркер из ведра пользователя для маршрута запроса.
+     *
+     * @return 0, если запрос разрешён, иначе сколько наносекунд ждать до следующего разрешённого
+     */
+    public long tryAcquire(Long userId, String method, String path) {
+        Route route = routeOf(method, path);
+        AtomicLong theoreticalArrival = buckets.get(new BucketKey(userId, route), key -> new AtomicLong(Long.MIN_VALUE));
+        long now = clock.getAsLong();
+
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long next = Math.max(tat, now) + route.interval;
+            long wait = next - now - route.tolerance;
+            if (wait > 0) {
+                route.rejected.increment();
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(tat, next)) {
+                route.allowed.increment();
+                return 0;
+            }
+        }
+    }
+
+    // Первая подходящая квота в порядке объявления
+    private Route routeOf(String method, String path) {
+        PathContainer container = PathContainer.parsePath(path);
+        for (Route route : routes) {
+            if (route.quota.matches(method, container)) {
+                return route;
+            }
+        }
+        return fallback;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, buckets, "rate-limit-buckets");
+        List<Route> all = new ArrayList<>(routes);
+        all.add(fallback);
+        for (Route route : all) {
+            bindCounter(registry, route, "allowed", route.allowed);
+            bindCounter(registry, route, "rejected", route.rejected);
+        }
+    }
+
+    private static void bindCounter(MeterRegistry registry, Route route, String outcome, LongAdder adder) {
+        FunctionCounter.builder("bankcards.ratelimit.requests", adder, LongAdder::sum)
+                .description("Запросы, прошедшие и отклонённые ограничением частоты")
+                .tag("route", route.quota.route())
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.bankcards.security;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -10,17 +12,28 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.time.Duration;
+
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
 @RequiredArgsConstructor
 public class SecurityConfig {
 
+    // Ниже 10 - слабее значения Spring по умолчанию, выше 14 - секунды на вход
+    private static final int MIN_BCRYPT_STRENGTH = 10;
+    private static final int MAX_BCRYPT_STRENGTH = 14;
+
     private final JwtAuthFilter jwtAuthFilter;
+    private final RateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+
+    // true - ограничение частоты запросов по пользователю и маршруту (rate-limit.quotas)
+    @Value("${rate-limit.enabled:true}")
+    private boolean rateLimitEnabled;
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -29,16 +42,33 @@ public class SecurityConfig {
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/auth/**", "/swagger-ui/**", "/v3/api-docs/**").permitAll()
+                        // Сбор метрик Prometheus и проверки живости идут без токена
+                        .requestMatchers("/actuator/health/**", "/actuator/prometheus").permitAll()
                         .anyRequest().authenticated()
                 )
                 .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
+        if (rateLimitEnabled) {
+            http.addFilterAfter(new RateLimitFilter(rateLimiter, objectMapper), JwtAuthFilter.class);
+        }
 
         return http.build();
     }
 
+    /**
+     * BCrypt на отдельном ограниченном пуле.
+     * strength = 0 - стоимость подбирается при старте так, чтобы хеш занимал около target-duration.
+     * Хеши с меньшей стоимостью перехешируются при следующем успешном входе.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BoundedPasswordEncoder passwordEncoder(
+            @Value("${security.bcrypt.strength:0}") int strength,
+            @Value("${security.bcrypt.target-duration:PT0.25S}") Duration targetDuration,
+            @Value("${security.password-hashing.threads:0}") int threads,
+            @Value("${security.password-hashing.queue-capacity:32}") int queueCapacity) {
+        int cost = strength > 0 ? strength : BcryptCostCalibrator.calibrate(targetDuration, MIN_BCRYPT_STRENGTH, MAX_BCRYPT_STRENGTH);
+        // Хеширование занимает ядро целиком: половина ядер остаётся остальным запросам
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(cost), poolSize, queueCapacity);
     }
 
     @Bean
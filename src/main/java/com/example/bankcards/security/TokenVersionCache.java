@@ -0,0 +1,55 @@
+package com.example.bankcards.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Текущие версии токенов пользователей для режима jwt.stateless-claims.
+ * Токен принимается, только если его версия совпадает с версией пользователя; удалённый пользователь
+ * хранится как отсутствующая версия. Запись живёт недолго: изменения на других экземплярах приложения
+ * видны не позже, чем через ttl.
+ */
+@Component
+public class TokenVersionCache implements MeterBinder {
+
+    // Пользователь не найден
+    private static final int MISSING = -1;
+
+    private final Cache<Long, Integer> cache;
+
+    public TokenVersionCache(@Value("${security.token-version-cache.max-size:100000}") long maxSize,
+                             @Value("${security.token-version-cache.ttl:PT30S}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    // Версия токена совпадает с текущей версией пользователя; при промахе версия загружается через loader
+    public boolean isCurrent(Long userId, int tokenVersion, Function<Long, Optional<Integer>> loader) {
+        int current = cache.get(userId, id -> loader.apply(id).orElse(MISSING));
+        return current != MISSING && current == tokenVersion;
+    }
+
+    // Сброс записи после изменения или удаления пользователя
+    public void invalidate(Long userId) {
+        if (userId != null) {
+            cache.invalidate(userId);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "token-versions");
+    }
+}
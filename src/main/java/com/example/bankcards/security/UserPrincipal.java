@@ -1,6 +1,8 @@
 package com.example.bankcards.security;
 
 import com.example.bankcards.entity.User;
+import com.example.bankcards.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -14,23 +16,64 @@ public class UserPrincipal implements UserDetails {
     private final String username;
     private final String password;
     private final Collection<? extends GrantedAuthority> authorities;
+    private final Integer tokenVersion;
 
     public UserPrincipal(Long id, String username, String password, Collection<? extends GrantedAuthority> authorities) {
+        this(id, username, password, authorities, null);
+    }
+
+    public UserPrincipal(Long id, String username, String password,
+                         Collection<? extends GrantedAuthority> authorities, Integer tokenVersion) {
         this.id = id;
         this.username = username;
         this.password = password;
         this.authorities = authorities;
+        this.tokenVersion = tokenVersion;
     }
 
     public static UserPrincipal create(User user) {
-        List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole().name()));
-        return new UserPrincipal(user.getId(), user.getUsername(), user.getPassword(), authorities);
+        return new UserPrincipal(user.getId(), user.getUsername(), user.getPassword(),
+                authoritiesOf(user.getRole()), user.getTokenVersion());
+    }
+
+    // Сборка пользователя из проверенных claims токена, без обращения к БД
+    public static UserPrincipal fromClaims(Claims claims) {
+        Long id = claims.get(JwtUtil.CLAIM_USER_ID, Long.class);
+        String role = claims.get(JwtUtil.CLAIM_ROLE, String.class);
+        if (id == null || role == null) {
+            return null;
+        }
+        return new UserPrincipal(id, claims.getSubject(), null,
+                authoritiesOf(User.Role.valueOf(role)), claims.get(JwtUtil.CLAIM_TOKEN_VERSION, Integer.class));
+    }
+
+    private static List<GrantedAuthority> authoritiesOf(User.Role role) {
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    }
+
+    // Копия без пароля - для хранения в кэше после успешной загрузки
+    public UserPrincipal withoutCredentials() {
+        return password == null ? this : new UserPrincipal(id, username, null, authorities, tokenVersion);
     }
 
     public Long getId() {
         return id;
     }
 
+    public Integer getTokenVersion() {
+        return tokenVersion;
+    }
+
+    // Роль из полномочий ROLE_*, у пользователя она одна
+    public User.Role getRole() {
+        return authorities.stream()
+                .map(GrantedAuthority::getAuthority)
+                .filter(authority -> authority.startsWith("ROLE_"))
+                .map(authority -> User.Role.valueOf(authority.substring("ROLE_".length())))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("У пользователя " + username + " нет роли"));
+    }
+
     @Override public Collection<? extends GrantedAuthority> getAuthorities() { return authorities; }
     @Override public String getPassword() { return password; }
     @Override public String getUsername() { return username; }
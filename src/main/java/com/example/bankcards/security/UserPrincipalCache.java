@@ -0,0 +1,73 @@
+package com.example.bankcards.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Кэш аутентифицированных пользователей для {@link JwtAuthFilter}.
+ * Хранит снимки {@link UserPrincipal} без пароля, ограничен по размеру и времени жизни записи.
+ */
+@Component
+public class UserPrincipalCache implements MeterBinder {
+
+    private final Cache<String, UserPrincipal> cache;
+
+    public UserPrincipalCache(@Value("${security.principal-cache.max-size:10000}") long maxSize,
+                              @Value("${security.principal-cache.ttl:PT5M}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    // Получение пользователя из кэша, при промахе - загрузка через loader
+    public UserPrincipal get(String username, Function<String, UserPrincipal> loader) {
+        return cache.get(username, name -> loader.apply(name).withoutCredentials());
+    }
+
+    // Сброс записи после изменения или удаления пользователя
+    public void invalidate(String username) {
+        if (username != null) {
+            cache.invalidate(username);
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long hitCount() {
+        return stats().hitCount();
+    }
+
+    public long missCount() {
+        return stats().missCount();
+    }
+
+    public long evictionCount() {
+        return stats().evictionCount();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "principals");
+    }
+
+    private CacheStats stats() {
+        return cache.stats();
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.AuthResponse;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.security.UserPrincipal;
+import com.example.bankcards.util.JwtUtil;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+@Service
+@RequiredArgsConstructor
+public class AuthService {
+
+    private static final String TOKEN_TYPE = "Bearer";
+
+    private final AuthenticationManager authenticationManager;
+    private final JwtUtil jwtUtil;
+    private final RefreshTokenService refreshTokenService;
+
+    /**
+     * Проверка пароля и выдача пары токенов. Хеш сверяется на пуле хеширования паролей;
+     * при переполнении его очереди вход отклоняется с 503, а не ждёт в потоке запроса.
+     *
+     * @throws org.springframework.security.core.AuthenticationException при неверном логине или пароле
+     */
+    @Timed("bankcards.auth.login")
+    public AuthResponse login(String username, String password) {
+        Authentication authentication = authenticationManager.authenticate(
+                new UsernamePasswordAuthenticationToken(username, password));
+        UserPrincipal principal = (UserPrincipal) authentication.getPrincipal();
+        String refreshToken = refreshTokenService.issue(principal.getId(), principal.getTokenVersion());
+        return response(jwtUtil.generateToken(principal), refreshToken);
+    }
+
+    /**
+     * Новая пара токенов по refresh-токену, без проверки пароля.
+     *
+     * @throws org.springframework.security.core.AuthenticationException если refresh-токен недействителен
+     */
+    @Timed("bankcards.auth.refresh")
+    public AuthResponse refresh(String refreshToken) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshToken);
+        User user = rotation.user();
+        return response(jwtUtil.generateToken(user), rotation.refreshToken());
+    }
+
+    // Выданный access-токен действует до истечения своего короткого срока
+    public void logout(String refreshToken) {
+        refreshTokenService.revoke(refreshToken);
+    }
+
+    private AuthResponse response(String accessToken, String refreshToken) {
+        return new AuthResponse(accessToken, refreshToken, TOKEN_TYPE,
+                TimeUnit.MILLISECONDS.toSeconds(jwtUtil.getExpirationMs()));
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardMetadata;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Кэш метаданных карт в памяти процесса, ограничен по размеру и времени жизни записи.
+ */
+@Component
+public class CaffeineCardMetadataCache implements CardMetadataCache, MeterBinder {
+
+    private final Cache<Long, CardMetadata> cache;
+
+    public CaffeineCardMetadataCache(@Value("${cards.metadata-cache.max-size:100000}") long maxSize,
+                                     @Value("${cards.metadata-cache.ttl:PT10M}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public CardMetadata get(Long cardId, Function<Long, CardMetadata> loader) {
+        return cache.get(cardId, loader);
+    }
+
+    @Override
+    public void evict(Long cardId) {
+        if (cardId != null) {
+            cache.invalidate(cardId);
+        }
+    }
+
+    @Override
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public Stats stats() {
+        CacheStats stats = cache.stats();
+        return new Stats(stats.hitCount(), stats.missCount(), stats.evictionCount(), cache.estimatedSize());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "card-metadata");
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardMetadata;
+
+import java.util.function.Function;
+
+/**
+ * Кэш метаданных карт (номер, владелец, срок, статус). Балансы не кэшируются и всегда читаются из БД.
+ * Реализация по умолчанию - {@link CaffeineCardMetadataCache} в памяти процесса;
+ * распределённое хранилище подключается отдельным бином этого интерфейса с {@code @Primary}.
+ */
+public interface CardMetadataCache {
+
+    // Метаданные из кэша, при промахе - загрузка через loader; null, если карты нет (не кэшируется)
+    CardMetadata get(Long cardId, Function<Long, CardMetadata> loader);
+
+    void evict(Long cardId);
+
+    void evictAll();
+
+    Stats stats();
+
+    record Stats(long hitCount, long missCount, long evictionCount, long size) {
+
+        public double hitRatio() {
+            long requests = hitCount + missCount;
+            return requests == 0 ? 0 : (double) hitCount / requests;
+        }
+    }
+}
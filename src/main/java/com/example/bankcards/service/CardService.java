@@ -1,17 +1,29 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardMetadata;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.repository.CardCursor;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardSpecifications;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.AfterCommit;
+import io.micrometer.core.annotation.Timed;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -23,57 +35,108 @@ public class CardService {
 
     private final CardRepository cardRepository;
     private final UserRepository userRepository;
+    private final CardMetadataCache cardMetadataCache;
+    private final CardSummaryService cardSummaryService;
+
+    // Страница карт пользователя в виде DTO: один SELECT с владельцем, без сущностей в контексте
+    @Timed(value = "bankcards.cards.list", extraTags = {"mode", "page"})
+    @Transactional(readOnly = true)
+    public Page<CardDto> getUserCardViews(String username, CardStatus status, BigDecimal minBalance,
+                                          BigDecimal maxBalance, Pageable pageable) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new EntityNotFoundException("Пользователь не найден: " + username));
+
+        return cardRepository.findViews(CardSpecifications.filter(user.getId(), status, minBalance, maxBalance), pageable);
+    }
 
-    // Получение всех карт пользователя с фильтрацией
-    public Page<Card> getUserCards(String username, Pageable pageable) {
+    // Keyset-пагинация: страница начинается сразу после курсора, без OFFSET и без COUNT-запроса
+    @Timed(value = "bankcards.cards.list", extraTags = {"mode", "scroll"})
+    @Transactional(readOnly = true)
+    public Slice<CardDto> scrollUserCards(String username, CardStatus status, BigDecimal minBalance, BigDecimal maxBalance,
+                                          CardCursor.SortKey sortKey, CardCursor cursor, int size) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new EntityNotFoundException("Пользователь не найден: " + username));
 
-        return cardRepository.findByOwner(user, pageable);
+        CardCursor.SortKey key = cursor != null ? cursor.sortKey() : sortKey;
+        Sort sort = key == CardCursor.SortKey.ID ? Sort.by("id") : Sort.by(key.property(), "id");
+        Specification<Card> spec = CardSpecifications.filter(user.getId(), status, minBalance, maxBalance)
+                .and(CardSpecifications.after(cursor));
+
+        // Лишняя строка показывает, есть ли следующая страница
+        List<CardDto> cards = cardRepository.findViews(spec, sort, size + 1);
+        boolean hasNext = cards.size() > size;
+        return new SliceImpl<>(hasNext ? cards.subList(0, size) : cards, PageRequest.ofSize(size), hasNext);
     }
 
     // Получение одной карты по ID
+    @Transactional(readOnly = true)
     public Card getCardById(Long id) {
         return cardRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Карта не найдена: id=" + id));
     }
 
-    // Создание карты
+    // Одна карта в виде DTO: метаданные из кэша, баланс - всегда из основной БД, реплика может не видеть перевод
+    @Transactional
+    public CardDto getCardView(Long id) {
+        CardMetadata metadata = getCardMetadata(id);
+        BigDecimal balance = cardRepository.findBalanceById(id)
+                .orElseThrow(() -> {
+                    cardMetadataCache.evict(id);
+                    return new ResourceNotFoundException("Карта не найдена: id=" + id);
+                });
+
+        return new CardDto(metadata.id(), metadata.maskedNumber(), metadata.ownerName(),
+                metadata.expirationDate(), metadata.status(), balance);
+    }
+
+    // Метаданные карты через кэш; при промахе - один запрос с владельцем
+    @Transactional(readOnly = true)
+    public CardMetadata getCardMetadata(Long id) {
+        CardMetadata metadata = cardMetadataCache.get(id, cardId -> cardRepository.findMetadataById(cardId).orElse(null));
+        if (metadata == null) {
+            throw new ResourceNotFoundException("Карта не найдена: id=" + id);
+        }
+        return metadata;
+    }
+
+    // Создание карты; сводка владельца меняется в той же транзакции
+    @Transactional
     public Card createCard(Card card, String username) {
         User owner = userRepository.findByUsername(username)
                 .orElseThrow(() -> new EntityNotFoundException("Пользователь не найден: " + username));
 
         card.setOwner(owner);
-        return cardRepository.save(card);
+        Card saved = cardRepository.save(card);
+        cardSummaryService.cardAdded(owner.getId(), saved.getStatus(), saved.getBalance());
+        return saved;
     }
 
     // Обновление карты (например, блокировка или изменение баланса)
+    @Transactional
     public Card updateCard(Long id, Card updated) {
         Card card = getCardById(id);
+        CardStatus oldStatus = card.getStatus();
+        BigDecimal oldBalance = card.getBalance();
 
         Optional.ofNullable(updated.getStatus()).ifPresent(card::setStatus);
         Optional.ofNullable(updated.getBalance()).ifPresent(card::setBalance);
 
-        return cardRepository.save(card);
+        Card saved = cardRepository.save(card);
+        // Контроллер берёт имя владельца для ответа уже после закрытия транзакции
+        Hibernate.initialize(saved.getOwner());
+        cardSummaryService.cardChanged(card.getOwner().getId(), oldStatus, oldBalance,
+                saved.getStatus(), saved.getBalance());
+        AfterCommit.run(() -> cardMetadataCache.evict(id));
+        return saved;
     }
 
-    // Удаление карты
+    // Удаление карты: загружаем её, чтобы вычесть баланс и статус из сводки владельца
+    @Transactional
     public void deleteCard(Long id) {
-        if (!cardRepository.existsById(id)) {
-            throw new EntityNotFoundException("Карта не найдена: id=" + id);
-        }
-        cardRepository.deleteById(id);
-    }
-
-    public Page<Card> filterCards(User owner, CardStatus status, BigDecimal minBalance, BigDecimal maxBalance, Pageable pageable) {
-        Page<Card> cards = cardRepository.findByOwner(owner, pageable);
-
-        List<Card> filtered = cards.getContent().stream()
-                .filter(card -> (status == null || card.getStatus() == status))
-                .filter(card -> (minBalance == null || card.getBalance().compareTo(minBalance) >= 0))
-                .filter(card -> (maxBalance == null || card.getBalance().compareTo(maxBalance) <= 0))
-                .toList();
-
-        return new PageImpl<>(filtered, pageable, filtered.size());
+        Card card = cardRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Карта не найдена: id=" + id));
+        cardRepository.delete(card);
+        cardSummaryService.cardRemoved(card.getOwner().getId(), card.getStatus(), card.getBalance());
+        AfterCommit.run(() -> cardMetadataCache.evict(id));
     }
 }
\ No newline at end of file
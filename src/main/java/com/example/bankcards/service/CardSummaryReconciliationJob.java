@@ -0,0 +1,76 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.UserCardSummary;
+import com.example.bankcards.repository.OwnerCardTotals;
+import com.example.bankcards.repository.UserCardSummaryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Периодическая сверка user_card_summary с cards.
+ * Сводки читаются пачками по user_id, итоги по картам для пачки считаются одним GROUP BY;
+ * расхождение перепроверяется и исправляется под блокировкой строки сводки в {@link CardSummaryService#reconcile}.
+ */
+@Slf4j
+@Component
+public class CardSummaryReconciliationJob {
+
+    private final UserCardSummaryRepository summaryRepository;
+    private final CardSummaryService cardSummaryService;
+    private final Counter drift;
+    private final int batchSize;
+
+    public CardSummaryReconciliationJob(UserCardSummaryRepository summaryRepository,
+                                        CardSummaryService cardSummaryService,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${cards.summary.reconcile-batch-size:500}") int batchSize) {
+        this.summaryRepository = summaryRepository;
+        this.cardSummaryService = cardSummaryService;
+        this.drift = Counter.builder("bankcards.cards.summary.drift")
+                .description("Сводки, исправленные сверкой с cards")
+                .register(meterRegistry);
+        this.batchSize = batchSize;
+    }
+
+    // Возвращает число исправленных сводок; ненулевое значение означает пропущенное где-то приращение
+    @Scheduled(cron = "${cards.summary.reconcile-cron:0 30 3 * * *}")
+    public int reconcile() {
+        int repaired = 0;
+        long lastUserId = 0;
+
+        List<UserCardSummary> batch;
+        do {
+            batch = summaryRepository.findByUserIdGreaterThanOrderByUserId(lastUserId, Limit.of(batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            Map<Long, OwnerCardTotals> actual = summaryRepository.aggregateCardsByOwner(
+                    batch.stream().map(UserCardSummary::getUserId).toList()
+            ).stream().collect(Collectors.toMap(OwnerCardTotals::ownerId, Function.identity()));
+
+            for (UserCardSummary summary : batch) {
+                OwnerCardTotals totals = actual.getOrDefault(summary.getUserId(), OwnerCardTotals.empty(summary.getUserId()));
+                // Расхождение без блокировки может быть гонкой с текущим переводом - проверяем ещё раз под блокировкой
+                if (!CardSummaryService.matches(summary, totals.toDto()) && cardSummaryService.reconcile(summary.getUserId())) {
+                    log.warn("Сводка карт пользователя {} разошлась с cards и пересчитана", summary.getUserId());
+                    drift.increment();
+                    repaired++;
+                }
+            }
+            lastUserId = batch.get(batch.size() - 1).getUserId();
+        } while (batch.size() == batchSize);
+
+        return repaired;
+    }
+}
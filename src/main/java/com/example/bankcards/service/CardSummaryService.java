@@ -0,0 +1,119 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardSummaryDto;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.UserCardSummary;
+import com.example.bankcards.repository.UserCardSummaryRepository;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Сводка по картам пользователя из user_card_summary.
+ * <p>
+ * Методы изменения вызываются в транзакции, которая меняет карты, после блокировки или изменения строк карт:
+ * порядок "карты, затем сводки по возрастанию user_id" одинаков во всех транзакциях и не даёт взаимных блокировок.
+ */
+@Service
+@RequiredArgsConstructor
+public class CardSummaryService {
+
+    private final UserCardSummaryRepository summaryRepository;
+
+    // Чтение сводки - одна строка по первичному ключу; строка создаётся по cards при первом обращении
+    @Timed("bankcards.cards.summary")
+    @Transactional
+    public CardSummaryDto getSummary(Long userId) {
+        UserCardSummary summary = summaryRepository.findById(userId).orElse(null);
+        if (summary == null) {
+            summaryRepository.insertFromCards(userId);
+            summary = summaryRepository.findById(userId).orElseThrow();
+        }
+        return toDto(summary);
+    }
+
+    // Новая карта
+    public void cardAdded(Long ownerId, CardStatus status, BigDecimal balance) {
+        applyDelta(ownerId, balance, 1, countIf(status, CardStatus.ACTIVE), countIf(status, CardStatus.BLOCKED));
+    }
+
+    // Удалённая карта
+    public void cardRemoved(Long ownerId, CardStatus status, BigDecimal balance) {
+        applyDelta(ownerId, balance.negate(), -1,
+                -countIf(status, CardStatus.ACTIVE), -countIf(status, CardStatus.BLOCKED));
+    }
+
+    // Смена статуса и/или баланса карты
+    public void cardChanged(Long ownerId, CardStatus oldStatus, BigDecimal oldBalance,
+                            CardStatus newStatus, BigDecimal newBalance) {
+        applyDelta(ownerId, newBalance.subtract(oldBalance), 0,
+                countIf(newStatus, CardStatus.ACTIVE) - countIf(oldStatus, CardStatus.ACTIVE),
+                countIf(newStatus, CardStatus.BLOCKED) - countIf(oldStatus, CardStatus.BLOCKED));
+    }
+
+    // Изменения балансов от переводов, сгруппированные по владельцам.
+    // Перевод между своими картами без комиссии даёт нулевое изменение и не трогает сводку
+    public void balancesChanged(Map<Long, BigDecimal> deltasByOwner) {
+        new TreeMap<>(deltasByOwner).forEach((ownerId, delta) -> applyDelta(ownerId, delta, 0, 0, 0));
+    }
+
+    /**
+     * Пересчитывает сводку пользователя по cards, если она разошлась с картами.
+     * Строка сводки блокируется до чтения карт: транзакции, уже изменившие сводку, к этому моменту зафиксированы,
+     * а ещё не изменившие применят своё приращение поверх пересчитанного значения.
+     *
+     * @return true, если сводка была исправлена
+     */
+    @Transactional
+    public boolean reconcile(Long userId) {
+        UserCardSummary summary = summaryRepository.findByIdForUpdate(userId).orElse(null);
+        if (summary == null) {
+            return false;
+        }
+
+        CardSummaryDto actual = summaryRepository.aggregateCards(userId);
+        if (matches(summary, actual)) {
+            return false;
+        }
+
+        summary.setTotalBalance(actual.getTotalBalance());
+        summary.setCardCount(actual.getCardCount());
+        summary.setActiveCount(actual.getActiveCount());
+        summary.setBlockedCount(actual.getBlockedCount());
+        return true;
+    }
+
+    static boolean matches(UserCardSummary summary, CardSummaryDto actual) {
+        return summary.getTotalBalance().compareTo(actual.getTotalBalance()) == 0
+                && summary.getCardCount() == actual.getCardCount()
+                && summary.getActiveCount() == actual.getActiveCount()
+                && summary.getBlockedCount() == actual.getBlockedCount();
+    }
+
+    // Строки сводки ещё нет - создаём её по cards в этой же транзакции: в итоги уже входят изменения карт
+    // этой транзакции, поэтому приращение не нужно. Если строку одновременно создала другая транзакция,
+    // вставка дождётся её коммита и ничего не вставит - тогда приращение применяется к её строке
+    private void applyDelta(Long ownerId, BigDecimal balance, long cards, long active, long blocked) {
+        if (balance.signum() == 0 && cards == 0 && active == 0 && blocked == 0) {
+            return;
+        }
+        if (summaryRepository.applyDelta(ownerId, balance, cards, active, blocked) == 0
+                && summaryRepository.insertFromCards(ownerId) == 0) {
+            summaryRepository.applyDelta(ownerId, balance, cards, active, blocked);
+        }
+    }
+
+    private static long countIf(CardStatus status, CardStatus expected) {
+        return status == expected ? 1 : 0;
+    }
+
+    private static CardSummaryDto toDto(UserCardSummary summary) {
+        return new CardSummaryDto(summary.getTotalBalance(), summary.getCardCount(),
+                summary.getActiveCount(), summary.getBlockedCount());
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardMetadata;
+import com.example.bankcards.dto.CardTransactionDto;
+import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.repository.CardTransactionRepository;
+import com.example.bankcards.repository.TransactionCursor;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class CardTransactionService {
+
+    // Границы периода по умолчанию - весь журнал; параметры запроса всегда конкретные значения,
+    // чтобы план запроса не зависел от того, задан ли фильтр
+    private static final Instant EARLIEST = Instant.EPOCH;
+    private static final Instant LATEST = Instant.parse("9999-12-31T00:00:00Z");
+
+    private final CardTransactionRepository cardTransactionRepository;
+    private final CardService cardService;
+
+    // История операций карты, новые сверху: период [from, to), keyset-пагинация без COUNT-запроса
+    @Timed("bankcards.cards.transactions")
+    @Transactional(readOnly = true)
+    public Slice<CardTransactionDto> getHistory(Long cardId, Long userId, Instant from, Instant to,
+                                                TransactionCursor cursor, int size) {
+        // Владелец из кэша метаданных; чужая карта неотличима от несуществующей
+        CardMetadata card = cardService.getCardMetadata(cardId);
+        if (!card.ownerId().equals(userId)) {
+            throw new ResourceNotFoundException("Карта не найдена: id=" + cardId);
+        }
+
+        TransactionCursor upperBound = upperBound(to, cursor);
+        List<CardTransactionDto> rows = cardTransactionRepository.findHistory(
+                cardId, from != null ? from : EARLIEST, upperBound.createdAt(), upperBound.id(), Limit.of(size + 1));
+
+        // Лишняя строка показывает, есть ли следующая страница
+        boolean hasNext = rows.size() > size;
+        return new SliceImpl<>(hasNext ? rows.subList(0, size) : rows, PageRequest.ofSize(size), hasNext);
+    }
+
+    // Курсор продолжает предыдущую страницу, но не выходит за конец периода
+    private TransactionCursor upperBound(Instant to, TransactionCursor cursor) {
+        TransactionCursor periodEnd = TransactionCursor.before(to != null ? to : LATEST);
+        if (cursor == null || !cursor.createdAt().isBefore(periodEnd.createdAt())) {
+            return periodEnd;
+        }
+        return cursor;
+    }
+}
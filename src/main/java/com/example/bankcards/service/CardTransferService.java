@@ -1,16 +1,36 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.BatchTransferRequest;
+import com.example.bankcards.dto.BatchTransferResult;
+import com.example.bankcards.dto.CardMetadata;
+import com.example.bankcards.dto.TransferRequest;
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardTransaction;
+import com.example.bankcards.entity.Transfer;
 import com.example.bankcards.exception.BusinessLogicException;
+import com.example.bankcards.exception.CardInactiveException;
+import com.example.bankcards.exception.CardOwnershipException;
+import com.example.bankcards.exception.InsufficientFundsException;
 import com.example.bankcards.exception.ResourceNotFoundException;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardTransactionRepository;
+import com.example.bankcards.repository.TransferRepository;
 import com.example.bankcards.security.UserPrincipal;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -20,19 +40,45 @@ public class CardTransferService {
     private static final BigDecimal COMMISSION_RATE = BigDecimal.valueOf(0.001); // 0.1%
 
     private final CardRepository cardRepository;
+    private final CardMetadataCache cardMetadataCache;
+    private final TransferRepository transferRepository;
+    private final CardTransactionRepository cardTransactionRepository;
+    private final CardSummaryService cardSummaryService;
 
-    private Card findCard(Long id) {
-        return cardRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Карта с ID " + id + " не найдена"));
+    @Value("${transfer.lock-mode:PESSIMISTIC}")
+    private TransferLockMode lockMode = TransferLockMode.PESSIMISTIC;
+
+    private Card lockCard(Long id) {
+        Optional<Card> card = lockMode == TransferLockMode.OPTIMISTIC
+                ? cardRepository.findById(id)
+                : cardRepository.findByIdForUpdate(id);
+        return card.orElseThrow(() -> {
+            cardMetadataCache.evict(id);
+            return new ResourceNotFoundException("Карта с ID " + id + " не найдена");
+        });
+    }
+
+    // Блокируем обе карты в порядке возрастания id, чтобы встречные переводы не приводили к взаимной блокировке.
+    // В режиме OPTIMISTIC строки не блокируются: конфликт обнаруживается по @Version при записи,
+    // и перевод целиком повторяется (@TransferRetryable снаружи транзакции)
+    private Card[] lockCards(Long fromCardId, Long toCardId) {
+        if (fromCardId.compareTo(toCardId) <= 0) {
+            Card fromCard = lockCard(fromCardId);
+            return new Card[]{fromCard, lockCard(toCardId)};
+        }
+        Card toCard = lockCard(toCardId);
+        return new Card[]{lockCard(fromCardId), toCard};
     }
 
+    // Отказ по актуальному состоянию из БД сбрасывает запись кэша метаданных - она могла устареть
     private void validateCardIsActive(Card card) {
         if (!card.getStatus().isActive()) {
-            throw new ResourceNotFoundException("Карта " + card.getId() + " неактивна или заблокирована");
+            cardMetadataCache.evict(card.getId());
+            throw new CardInactiveException(card.getId());
         }
     }
 
-    private BigDecimal calculateCommission(BigDecimal amount) {
+    BigDecimal calculateCommission(BigDecimal amount) {
         if (amount.compareTo(FREE_TRANSFER_LIMIT) <= 0) {
             return BigDecimal.ZERO;
         }
@@ -40,32 +86,127 @@ public class CardTransferService {
         return overLimit.multiply(COMMISSION_RATE);
     }
 
+    // Быстрый отказ по кэшу без блокировок: владелец карты не меняется, поэтому кэшу можно верить при отказе.
+    // Положительный результат не окончательный - принадлежность проверяется ещё раз под блокировкой
+    private void rejectForeignCards(Long ownerId, Long... cardIds) {
+        for (Long cardId : cardIds) {
+            CardMetadata metadata = cardMetadataCache.get(cardId, id -> cardRepository.findMetadataById(id).orElse(null));
+            if (metadata != null && !metadata.ownerId().equals(ownerId)) {
+                throw new CardOwnershipException();
+            }
+        }
+    }
+
+    @TransferRetryable
     @Transactional
     public void transferBetweenOwnCards(UserPrincipal currentUser, Long fromCardId, Long toCardId, BigDecimal amount) {
-        Card fromCard = findCard(fromCardId);
-        Card toCard = findCard(toCardId);
+        rejectForeignCards(currentUser.getId(), fromCardId, toCardId);
+
+        if (lockMode == TransferLockMode.ATOMIC) {
+            executeAtomicTransfer(fromCardId, toCardId, amount, currentUser.getId());
+            return;
+        }
+
+        Card[] cards = lockCards(fromCardId, toCardId);
+        Card fromCard = cards[0];
+        Card toCard = cards[1];
 
         // Проверка принадлежности карт пользователю
         if (!fromCard.getOwner().getId().equals(currentUser.getId()) ||
                 !toCard.getOwner().getId().equals(currentUser.getId())) {
-            throw new BusinessLogicException("Вы можете переводить только между своими картами");
+            throw new CardOwnershipException();
         }
 
         executeTransfer(fromCard, toCard, amount);
     }
 
+    @TransferRetryable
     @Transactional
     public void transferBetweenAnyCards(Long fromCardId, Long toCardId, BigDecimal amount) {
-        Card fromCard = findCard(fromCardId);
-        Card toCard = findCard(toCardId);
+        if (lockMode == TransferLockMode.ATOMIC) {
+            executeAtomicTransfer(fromCardId, toCardId, amount, null);
+            return;
+        }
+
+        Card[] cards = lockCards(fromCardId, toCardId);
+        Card fromCard = cards[0];
+        Card toCard = cards[1];
 
         executeTransfer(fromCard, toCard, amount);
     }
 
-    private void executeTransfer(Card fromCard, Card toCard, BigDecimal amount) {
+    private void validateAmount(BigDecimal amount) {
         if (amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new BusinessLogicException("Сумма перевода должна быть положительной");
         }
+    }
+
+    // Пакет переводов в одной транзакции: все карты загружаются одним запросом,
+    // изменения балансов сбрасываются в БД пакетными UPDATE при коммите (hibernate.jdbc.batch_size)
+    @TransferRetryable
+    @Transactional
+    public BatchTransferResult transferBatch(List<TransferRequest> transfers, BatchTransferRequest.Atomicity atomicity) {
+        Map<Long, Card> cards = prefetchCards(transfers);
+        BatchTransferResult result = new BatchTransferResult();
+        // Сводки владельцев обновляются один раз за пакет суммарным изменением
+        Map<Long, BigDecimal> ownerDeltas = new HashMap<>();
+
+        for (int i = 0; i < transfers.size(); i++) {
+            TransferRequest request = transfers.get(i);
+            try {
+                applyTransfer(
+                        prefetchedCard(cards, request.getFromCard()),
+                        prefetchedCard(cards, request.getToCard()),
+                        request.getAmount(),
+                        ownerDeltas
+                );
+                result.addSuccess(i, request);
+            } catch (BusinessLogicException | ResourceNotFoundException e) {
+                if (atomicity == BatchTransferRequest.Atomicity.ALL_OR_NOTHING) {
+                    throw new BusinessLogicException("Перевод #" + i + ": " + e.getMessage());
+                }
+                result.addFailure(i, request, e.getMessage());
+            }
+        }
+
+        cardSummaryService.balancesChanged(ownerDeltas);
+        return result;
+    }
+
+    private Map<Long, Card> prefetchCards(List<TransferRequest> transfers) {
+        TreeSet<Long> ids = new TreeSet<>();
+        transfers.forEach(t -> {
+            ids.add(t.getFromCard());
+            ids.add(t.getToCard());
+        });
+
+        List<Card> cards = lockMode == TransferLockMode.OPTIMISTIC
+                ? cardRepository.findAllById(ids)
+                : cardRepository.findAllByIdForUpdate(ids);
+        return cards.stream().collect(Collectors.toMap(Card::getId, Function.identity()));
+    }
+
+    private Card prefetchedCard(Map<Long, Card> cards, Long id) {
+        Card card = cards.get(id);
+        if (card == null) {
+            throw new ResourceNotFoundException("Карта с ID " + id + " не найдена");
+        }
+        return card;
+    }
+
+    void executeTransfer(Card fromCard, Card toCard, BigDecimal amount) {
+        Map<Long, BigDecimal> ownerDeltas = new HashMap<>();
+        applyTransfer(fromCard, toCard, amount, ownerDeltas);
+
+        cardRepository.save(fromCard);
+        cardRepository.save(toCard);
+        cardSummaryService.balancesChanged(ownerDeltas);
+    }
+
+    // Все проверки выполняются до изменения балансов - отклонённый перевод не оставляет частичных изменений.
+    // Изменения балансов копятся в ownerDeltas по владельцам карт для сводок user_card_summary
+    void applyTransfer(Card fromCard, Card toCard, BigDecimal amount, Map<Long, BigDecimal> ownerDeltas) {
+        validateAmount(amount);
 
         validateCardIsActive(fromCard);
         validateCardIsActive(toCard);
@@ -74,13 +215,114 @@ public class CardTransferService {
         BigDecimal totalAmount = amount.add(commission);
 
         if (fromCard.getBalance().compareTo(totalAmount) < 0) {
-            throw new BusinessLogicException("Недостаточно средств для перевода");
+            throw new InsufficientFundsException();
         }
 
         fromCard.setBalance(fromCard.getBalance().subtract(totalAmount));
         toCard.setBalance(toCard.getBalance().add(amount));
+        ownerDeltas.merge(fromCard.getOwner().getId(), totalAmount.negate(), BigDecimal::add);
+        ownerDeltas.merge(toCard.getOwner().getId(), amount, BigDecimal::add);
 
-        cardRepository.save(fromCard);
-        cardRepository.save(toCard);
+        recordTransfer(fromCard.getId(), toCard.getId(), amount, commission);
+    }
+
+    // Запись журнала и проводок по обеим картам в той же транзакции, что и балансы: перевод без записи не фиксируется.
+    // persist не обращается к БД (id из последовательности), INSERT-ы выполняются при коммите пакетами
+    private void recordTransfer(Long fromCardId, Long toCardId, BigDecimal amount, BigDecimal commission) {
+        Transfer transfer = transferRepository.save(Transfer.builder()
+                .fromCardId(fromCardId)
+                .toCardId(toCardId)
+                .amount(amount)
+                .commission(commission)
+                .build());
+
+        cardTransactionRepository.saveAll(List.of(
+                CardTransaction.builder()
+                        .cardId(fromCardId)
+                        .counterpartyCardId(toCardId)
+                        .transferId(transfer.getId())
+                        .amount(amount.add(commission).negate())
+                        .commission(commission)
+                        .build(),
+                CardTransaction.builder()
+                        .cardId(toCardId)
+                        .counterpartyCardId(fromCardId)
+                        .transferId(transfer.getId())
+                        .amount(amount)
+                        .commission(BigDecimal.ZERO)
+                        .build()
+        ));
+    }
+
+    // Перевод двумя условными UPDATE без загрузки карт; порядок по id - как у блокировок в lockCards.
+    // Если одна из частей не применилась, исключение откатывает транзакцию вместе с уже выполненной частью
+    private void executeAtomicTransfer(Long fromCardId, Long toCardId, BigDecimal amount, Long ownerId) {
+        validateAmount(amount);
+
+        BigDecimal commission = calculateCommission(amount);
+        BigDecimal totalAmount = amount.add(commission);
+
+        if (fromCardId.compareTo(toCardId) <= 0) {
+            debit(fromCardId, totalAmount, ownerId);
+            credit(toCardId, amount, ownerId);
+        } else {
+            credit(toCardId, amount, ownerId);
+            debit(fromCardId, totalAmount, ownerId);
+        }
+
+        recordTransfer(fromCardId, toCardId, amount, commission);
+        cardSummaryService.balancesChanged(ownerDeltas(fromCardId, toCardId, amount, commission, ownerId));
+    }
+
+    // Между своими картами общий баланс владельца меняется только на комиссию; для перевода администратора
+    // владельцы берутся из кэша метаданных - владелец карты не меняется
+    private Map<Long, BigDecimal> ownerDeltas(Long fromCardId, Long toCardId, BigDecimal amount,
+                                              BigDecimal commission, Long ownerId) {
+        if (ownerId != null) {
+            return Map.of(ownerId, commission.negate());
+        }
+        Map<Long, BigDecimal> deltas = new HashMap<>();
+        deltas.merge(ownerOf(fromCardId), amount.add(commission).negate(), BigDecimal::add);
+        deltas.merge(ownerOf(toCardId), amount, BigDecimal::add);
+        return deltas;
+    }
+
+    private Long ownerOf(Long cardId) {
+        CardMetadata metadata = cardMetadataCache.get(cardId, id -> cardRepository.findMetadataById(id).orElse(null));
+        if (metadata == null) {
+            throw new ResourceNotFoundException("Карта с ID " + cardId + " не найдена");
+        }
+        return metadata.ownerId();
+    }
+
+    private void debit(Long cardId, BigDecimal totalAmount, Long ownerId) {
+        if (cardRepository.debitIfSufficient(cardId, totalAmount, ownerId) == 0) {
+            throw rejection(cardId, ownerId, totalAmount);
+        }
+    }
+
+    private void credit(Long cardId, BigDecimal amount, Long ownerId) {
+        if (cardRepository.creditIfActive(cardId, amount, ownerId) == 0) {
+            throw rejection(cardId, ownerId, null);
+        }
+    }
+
+    // Причина отказа выясняется только на медленном пути, когда UPDATE не затронул строку
+    private RuntimeException rejection(Long cardId, Long ownerId, BigDecimal requiredBalance) {
+        cardMetadataCache.evict(cardId);
+        Card card = cardRepository.findById(cardId).orElse(null);
+        if (card == null) {
+            return new ResourceNotFoundException("Карта с ID " + cardId + " не найдена");
+        }
+        if (ownerId != null && !card.getOwner().getId().equals(ownerId)) {
+            return new CardOwnershipException();
+        }
+        if (!card.getStatus().isActive()) {
+            return new CardInactiveException(cardId);
+        }
+        if (requiredBalance != null && card.getBalance().compareTo(requiredBalance) < 0) {
+            return new InsufficientFundsException();
+        }
+        return new OptimisticLockingFailureException("Карта " + cardId + " изменилась во время перевода");
     }
 }
@@ -0,0 +1,198 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.IdempotencyRecord;
+import com.example.bankcards.exception.BusinessLogicException;
+import com.example.bankcards.exception.IdempotencyConflictException;
+import com.example.bankcards.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+/**
+ * Идемпотентность запросов перевода по заголовку Idempotency-Key.
+ * <p>
+ * Ключ резервируется вставкой в idempotency_keys: уникальный индекс (user_id, idempotency_key) пропускает
+ * только один запрос, остальные получают сохранённый ответ или 409, пока первый выполняется.
+ * Успешные ответы хранятся в таблице и в кэше процесса, повтор отдаётся без вызова CardTransferService.
+ * Неуспешный перевод откатан целиком, поэтому его резерв снимается и запрос можно повторить с тем же ключом.
+ * Перевод и запись ответа - разные транзакции: если процесс упал между ними, резерв остаётся незавершённым
+ * и ключ отвечает 409 без срока давности, потому что выполнен ли перевод, по резерву не узнать.
+ */
+@Service
+public class IdempotencyService implements MeterBinder {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final int purgeBatchSize;
+
+    // Завершённые ответы не меняются, поэтому кэш не нужно согласовывать между экземплярами приложения
+    private final Cache<Key, StoredResponse> completed;
+
+    private record Key(Long userId, String idempotencyKey) {
+    }
+
+    private record StoredResponse(String requestHash, int status, String body) {
+    }
+
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              ObjectMapper objectMapper,
+                              @Value("${transfer.idempotency.ttl:PT24H}") Duration ttl,
+                              @Value("${transfer.idempotency.cache-max-size:10000}") long cacheMaxSize,
+                              @Value("${transfer.idempotency.purge-batch-size:1000}") int purgeBatchSize) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.purgeBatchSize = purgeBatchSize;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Выполняет action не больше одного раза на ключ пользователя. Без ключа action выполняется как обычно.
+     *
+     * @param operation имя операции; вместе с телом запроса образует отпечаток, с которым сверяются повторы
+     * @throws IdempotencyConflictException если запрос с этим ключом ещё выполняется или ключ использован для другого запроса
+     */
+    public ResponseEntity<?> execute(Long userId, String idempotencyKey, String operation, Object request,
+                                     Supplier<ResponseEntity<?>> action) {
+        if (idempotencyKey == null) {
+            return action.get();
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BusinessLogicException("Idempotency-Key должен содержать от 1 до " + MAX_KEY_LENGTH + " символов");
+        }
+
+        Key key = new Key(userId, idempotencyKey);
+        String requestHash = fingerprint(operation, request);
+
+        StoredResponse cached = completed.getIfPresent(key);
+        if (cached != null) {
+            return replay(cached, requestHash);
+        }
+
+        IdempotencyRecord reservation;
+        try {
+            reservation = repository.saveAndFlush(IdempotencyRecord.builder()
+                    .userId(userId)
+                    .idempotencyKey(idempotencyKey)
+                    .requestHash(requestHash)
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            return replayExisting(key, requestHash);
+        }
+
+        ResponseEntity<?> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            repository.deleteById(reservation.getId());
+            throw e;
+        }
+
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            repository.deleteById(reservation.getId());
+            return response;
+        }
+
+        String body = toJson(response.getBody());
+        repository.complete(reservation.getId(), response.getStatusCode().value(), body);
+        completed.put(key, new StoredResponse(requestHash, response.getStatusCode().value(), body));
+        return response;
+    }
+
+    // Удаление завершённых ключей старше TTL, после этого ключ можно использовать заново; зависшие резервы остаются
+    @Scheduled(fixedDelayString = "${transfer.idempotency.purge-interval:PT1H}")
+    public int purgeExpired() {
+        Instant cutoff = Instant.now().minus(ttl);
+        int purged = 0;
+        int deleted;
+        do {
+            deleted = repository.deleteCompletedBefore(cutoff, purgeBatchSize);
+            purged += deleted;
+        } while (deleted == purgeBatchSize);
+        return purged;
+    }
+
+    // Ключ уже зарезервирован: ответ готов - отдаём его, иначе запрос ещё выполняется или только что откатился
+    private ResponseEntity<?> replayExisting(Key key, String requestHash) {
+        IdempotencyRecord record = repository.findByUserIdAndIdempotencyKey(key.userId(), key.idempotencyKey())
+                .orElseThrow(() -> new IdempotencyConflictException("Запрос с этим Idempotency-Key ещё выполняется"));
+
+        if (!record.getRequestHash().equals(requestHash)) {
+            throw reusedKey();
+        }
+        if (!record.isCompleted()) {
+            throw new IdempotencyConflictException("Запрос с этим Idempotency-Key ещё выполняется");
+        }
+
+        StoredResponse stored = new StoredResponse(record.getRequestHash(), record.getResponseStatus(), record.getResponseBody());
+        completed.put(key, stored);
+        return replay(stored, requestHash);
+    }
+
+    private ResponseEntity<?> replay(StoredResponse stored, String requestHash) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw reusedKey();
+        }
+        return ResponseEntity.status(stored.status())
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(REPLAYED_HEADER, "true")
+                .body(stored.body());
+    }
+
+    private static IdempotencyConflictException reusedKey() {
+        return new IdempotencyConflictException("Idempotency-Key уже использован для другого запроса");
+    }
+
+    private String fingerprint(String operation, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(toJson(request).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать " + value.getClass().getSimpleName(), e);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, completed, "idempotency-responses");
+    }
+}
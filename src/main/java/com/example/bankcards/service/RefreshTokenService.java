@@ -0,0 +1,125 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.RefreshToken;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.RefreshTokenRepository;
+import com.example.bankcards.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * Выдача и обмен refresh-токенов.
+ * <p>
+ * Токен - 32 случайных байта, в таблице хранится его SHA-256. Каждый обмен отзывает предъявленный токен и выдаёт новый.
+ * Повторное предъявление уже обменянного токена означает, что его копия у кого-то ещё, - отзываются все токены пользователя.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final Duration ttl;
+    private final int purgeBatchSize;
+    private final SecureRandom random = new SecureRandom();
+
+    public record Rotation(User user, String refreshToken) {
+    }
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               UserRepository userRepository,
+                               @Value("${jwt.refresh-token.ttl:P30D}") Duration ttl,
+                               @Value("${jwt.refresh-token.purge-batch-size:1000}") int purgeBatchSize) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+        this.ttl = ttl;
+        this.purgeBatchSize = purgeBatchSize;
+    }
+
+    // Новый токен; в ответ клиенту уходит только значение, в таблицу - хеш
+    public String issue(Long userId, int tokenVersion) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        refreshTokenRepository.save(RefreshToken.builder()
+                .userId(userId)
+                .tokenHash(hash(token))
+                .tokenVersion(tokenVersion)
+                .expiresAt(Instant.now().plus(ttl))
+                .build());
+        return token;
+    }
+
+    /**
+     * Обменивает токен на новый. Отзыв токенов при повторном использовании фиксируется, хотя запрос получает 401.
+     *
+     * @throws BadCredentialsException если токен неизвестен, истёк, уже использован или версия токенов пользователя сменилась
+     */
+    @Transactional(noRollbackFor = AuthenticationException.class)
+    public Rotation rotate(String token) {
+        RefreshToken current = refreshTokenRepository.findByTokenHash(hash(token))
+                .orElseThrow(RefreshTokenService::invalidToken);
+
+        Instant now = Instant.now();
+        if (refreshTokenRepository.revoke(current.getId(), now) == 0) {
+            refreshTokenRepository.revokeAllForUser(current.getUserId(), now);
+            throw invalidToken();
+        }
+        if (current.getExpiresAt().isBefore(now)) {
+            throw invalidToken();
+        }
+
+        User user = userRepository.findUncachedById(current.getUserId())
+                .filter(u -> u.getTokenVersion() == current.getTokenVersion())
+                .orElseThrow(RefreshTokenService::invalidToken);
+        return new Rotation(user, issue(user.getId(), user.getTokenVersion()));
+    }
+
+    // Выход: неизвестный или уже отозванный токен не считается ошибкой
+    @Transactional
+    public void revoke(String token) {
+        refreshTokenRepository.findByTokenHash(hash(token))
+                .ifPresent(current -> refreshTokenRepository.revoke(current.getId(), Instant.now()));
+    }
+
+    // Удаление истёкших токенов; отозванные живут до истечения срока, чтобы распознать повторное использование
+    @Scheduled(fixedDelayString = "${jwt.refresh-token.purge-interval:PT1H}")
+    public int purgeExpired() {
+        Instant cutoff = Instant.now();
+        int purged = 0;
+        int deleted;
+        do {
+            deleted = refreshTokenRepository.deleteExpiredBefore(cutoff, purgeBatchSize);
+            purged += deleted;
+        } while (deleted == purgeBatchSize);
+        return purged;
+    }
+
+    private static BadCredentialsException invalidToken() {
+        return new BadCredentialsException("Недействительный refresh-токен");
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.bankcards.service;
+
+/**
+ * Способ защиты баланса карт от параллельных переводов.
+ */
+public enum TransferLockMode {
+    // SELECT ... FOR UPDATE обеих карт в порядке возрастания id
+    PESSIMISTIC,
+    // Проверка @Version при записи, конфликт - повтор перевода
+    OPTIMISTIC,
+    // Условный UPDATE на каждую карту без загрузки сущностей
+    ATOMIC
+}
@@ -0,0 +1,70 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.exception.BusinessLogicException;
+import com.example.bankcards.exception.CardInactiveException;
+import com.example.bankcards.exception.CardOwnershipException;
+import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Время выполнения переводов и счётчик отказов по причинам.
+ * Стоит снаружи повторов и транзакции: в замер входят все попытки и коммит.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class TransferMetricsAspect {
+
+    static final String TRANSFER_TIMER = "bankcards.transfer";
+    static final String FAILURE_COUNTER = "bankcards.transfer.failures";
+
+    private final MeterRegistry meterRegistry;
+
+    @Around("execution(public * com.example.bankcards.service.CardTransferService.transfer*(..))")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        String operation = joinPoint.getSignature().getName();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            outcome = failureReason(e);
+            meterRegistry.counter(FAILURE_COUNTER, "operation", operation, "reason", outcome).increment();
+            throw e;
+        } finally {
+            sample.stop(meterRegistry.timer(TRANSFER_TIMER, "operation", operation, "outcome", outcome));
+        }
+    }
+
+    static String failureReason(Throwable e) {
+        if (e instanceof InsufficientFundsException) {
+            return "insufficient_funds";
+        }
+        if (e instanceof CardInactiveException) {
+            return "inactive_card";
+        }
+        if (e instanceof CardOwnershipException) {
+            return "ownership";
+        }
+        if (e instanceof ResourceNotFoundException) {
+            return "card_not_found";
+        }
+        if (TransferRetryListener.isConflict(e)) {
+            return "conflict";
+        }
+        if (e instanceof BusinessLogicException) {
+            return "rejected";
+        }
+        return "error";
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.bankcards.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.OptimisticLockException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счётчики повторов переводов при конфликтах оптимистичной блокировки.
+ */
+@Component("transferRetryListener")
+public class TransferRetryListener implements RetryListener, MeterBinder {
+
+    private final LongAdder transfers = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+
+    @Override
+    public <T, E extends Throwable> boolean open(RetryContext context, RetryCallback<T, E> callback) {
+        transfers.increment();
+        return true;
+    }
+
+    @Override
+    public <T, E extends Throwable> void onError(RetryContext context, RetryCallback<T, E> callback, Throwable throwable) {
+        if (isConflict(throwable)) {
+            conflicts.increment();
+        }
+    }
+
+    // Перевод завершился конфликтом - попытки исчерпаны
+    @Override
+    public <T, E extends Throwable> void close(RetryContext context, RetryCallback<T, E> callback, Throwable throwable) {
+        if (isConflict(throwable)) {
+            exhausted.increment();
+        }
+    }
+
+    static boolean isConflict(Throwable throwable) {
+        return throwable instanceof OptimisticLockingFailureException
+                || throwable instanceof OptimisticLockException;
+    }
+
+    public long transferCount() {
+        return transfers.sum();
+    }
+
+    public long conflictCount() {
+        return conflicts.sum();
+    }
+
+    public long exhaustedCount() {
+        return exhausted.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("bankcards.transfer.retry.calls", transfers, LongAdder::sum)
+                .description("Переводы под @TransferRetryable")
+                .register(registry);
+        FunctionCounter.builder("bankcards.transfer.retry.conflicts", conflicts, LongAdder::sum)
+                .description("Конфликты оптимистичной блокировки, вызвавшие повтор")
+                .register(registry);
+        FunctionCounter.builder("bankcards.transfer.retry.exhausted", exhausted, LongAdder::sum)
+                .description("Переводы, исчерпавшие попытки")
+                .register(registry);
+    }
+
+    public double conflictRate() {
+        long total = transfers.sum();
+        return total == 0 ? 0 : (double) conflicts.sum() / total;
+    }
+}
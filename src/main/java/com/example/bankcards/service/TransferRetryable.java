@@ -0,0 +1,31 @@
+package com.example.bankcards.service;
+
+import jakarta.persistence.OptimisticLockException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Повтор всей транзакции перевода при конфликте оптимистичной блокировки:
+ * экспоненциальная пауза со случайным разбросом, число попыток - transfer.retry.max-attempts.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Retryable(
+        retryFor = {OptimisticLockingFailureException.class, OptimisticLockException.class},
+        maxAttemptsExpression = "${transfer.retry.max-attempts:5}",
+        backoff = @Backoff(
+                delayExpression = "${transfer.retry.initial-backoff-ms:10}",
+                maxDelayExpression = "${transfer.retry.max-backoff-ms:200}",
+                multiplier = 2,
+                random = true),
+        listeners = "transferRetryListener")
+public @interface TransferRetryable {
+}
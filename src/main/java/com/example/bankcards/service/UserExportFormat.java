@@ -0,0 +1,28 @@
+package com.example.bankcards.service;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Формат потоковой выгрузки пользователей.
+ */
+public enum UserExportFormat {
+    // Один JSON-объект на строку
+    NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+    CSV(MediaType.parseMediaType("text/csv;charset=UTF-8"), "csv");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    UserExportFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+}
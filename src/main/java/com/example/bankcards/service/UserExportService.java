@@ -0,0 +1,76 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.UserExportRow;
+import com.example.bankcards.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Выгрузка всех пользователей с постоянным расходом памяти: строки читаются курсором БД
+ * и сразу пишутся в ответ, без накопления списка.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserExportService {
+
+    // Сбрасываем буфер в ответ каждые N строк, чтобы клиент получал данные сразу
+    private static final int FLUSH_EVERY_ROWS = 1000;
+
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+
+    // Транзакция держит курсор открытым (в PostgreSQL fetch size работает только вне autocommit)
+    @Transactional(readOnly = true)
+    public long export(UserExportFormat format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        long rows = 0;
+
+        if (format == UserExportFormat.CSV) {
+            writer.write("id,username,role\n");
+        }
+
+        try (Stream<UserExportRow> users = userRepository.streamForExport()) {
+            Iterator<UserExportRow> iterator = users.iterator();
+            while (iterator.hasNext()) {
+                writeRow(format, iterator.next(), writer);
+                if (++rows % FLUSH_EVERY_ROWS == 0) {
+                    writer.flush();
+                }
+            }
+        }
+
+        writer.flush();
+        return rows;
+    }
+
+    private void writeRow(UserExportFormat format, UserExportRow row, Writer writer) throws IOException {
+        if (format == UserExportFormat.CSV) {
+            writer.write(row.getId() + "," + csv(row.getUsername()) + "," + (row.getRole() != null ? row.getRole() : "") + "\n");
+        } else {
+            writer.write(objectMapper.writeValueAsString(row));
+            writer.write('\n');
+        }
+    }
+
+    // Экранирование по RFC 4180: поле с запятой, кавычкой или переводом строки берётся в кавычки
+    static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
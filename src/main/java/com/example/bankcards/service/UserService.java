@@ -3,11 +3,15 @@ package com.example.bankcards.service;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.ResourceNotFoundException;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.TokenVersionCache;
+import com.example.bankcards.security.UserPrincipalCache;
+import com.example.bankcards.util.AfterCommit;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-
-import java.util.List;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
@@ -15,7 +19,11 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserPrincipalCache userPrincipalCache;
+    private final TokenVersionCache tokenVersionCache;
+    private final CardMetadataCache cardMetadataCache;
 
+    @Transactional
     public User registerUser(String username, String password, User.Role role) {
         if (userRepository.existsByUsername(username)) {
             throw new IllegalArgumentException("Username already exists");
@@ -30,31 +38,63 @@ public class UserService {
         return userRepository.save(user);
     }
 
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    @Transactional(readOnly = true)
+    public Page<User> getAllUsers(Pageable pageable) {
+        return userRepository.findAll(pageable);
     }
 
+    @Transactional(readOnly = true)
     public User getUserById(Long id) {
         return userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
     }
 
+    // Чтение и запись в одной транзакции на основной БД: с реплики пришла бы устаревшая версия пользователя.
+    // Кэши пользователя сбрасываются после коммита, иначе параллельный запрос вернул бы в них старые данные
+    @Transactional
     public User updateUser(Long id, String username, String password, User.Role role) {
-        User user = getUserById(id);
+        User user = getUserForUpdate(id);
 
         if (username != null && !username.equals(user.getUsername()) && userRepository.existsByUsername(username)) {
             throw new IllegalArgumentException("Username already exists");
         }
 
+        String previousUsername = user.getUsername();
+
         if (username != null) user.setUsername(username);
         if (password != null) user.setPassword(passwordEncoder.encode(password));
         if (role != null) user.setRole(role);
+        if (username != null || password != null || role != null) user.incrementTokenVersion();
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        AfterCommit.run(() -> {
+            userPrincipalCache.invalidate(previousUsername);
+            tokenVersionCache.invalidate(id);
+        });
+        // Логин владельца входит в метаданные карт - записи по всем его картам устарели
+        if (username != null && !username.equals(previousUsername)) {
+            AfterCommit.run(cardMetadataCache::evictAll);
+        }
+        return saved;
     }
 
+    @Transactional
     public void deleteUser(Long id) {
-        User user = getUserById(id);
+        User user = getUserForUpdate(id);
         userRepository.delete(user);
+        String username = user.getUsername();
+        AfterCommit.run(() -> {
+            userPrincipalCache.invalidate(username);
+            tokenVersionCache.invalidate(id);
+        });
+        // Карты удаляются каскадом вместе с пользователем
+        AfterCommit.run(cardMetadataCache::evictAll);
+    }
+
+    // Мимо второго уровня кэша: версия токенов из кэша этого узла могла устареть, и увеличенная от неё
+    // версия снова сделала бы действительными отозванные токены
+    private User getUserForUpdate(Long id) {
+        return userRepository.findUncachedById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
     }
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.example.bankcards.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Действия, которые нельзя выполнять до фиксации транзакции, - прежде всего сброс кэшей:
+ * сброшенная до коммита запись тут же загружается заново со старыми данными и живёт весь TTL.
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    // Внутри транзакции - после коммита (при откате не выполняется), вне транзакции - сразу
+    public static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.bankcards.util;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+
+import java.security.Key;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Ключи подписи JWT с идентификаторами (kid).
+ * <p>
+ * Подписывает только активный ключ, проверяются токены любого ключа из набора. Ротация на всех узлах:
+ * добавить новый ключ, затем сделать его активным, старый удалить не раньше, чем истекут подписанные им токены.
+ */
+public final class JwtKeyRing {
+
+    // Ключ процесса, если общие ключи не заданы: токены не переживают перезапуск и не принимаются другими узлами
+    static final String LOCAL_KEY_ID = "local";
+
+    private final Map<String, Key> keys;
+    private final String activeKeyId;
+
+    private JwtKeyRing(Map<String, Key> keys, String activeKeyId) {
+        if (!keys.containsKey(activeKeyId)) {
+            throw new IllegalArgumentException("Активный ключ JWT '" + activeKeyId + "' отсутствует в наборе " + keys.keySet());
+        }
+        this.keys = Map.copyOf(keys);
+        this.activeKeyId = activeKeyId;
+    }
+
+    /**
+     * Набор из строки вида {@code kid1:base64,kid2:base64}; секрет HS256 - не меньше 32 байт.
+     * Пустая строка - случайный ключ процесса.
+     *
+     * @param activeKeyId ключ для подписи новых токенов; пусто - первый в списке
+     */
+    public static JwtKeyRing parse(String spec, String activeKeyId) {
+        if (spec == null || spec.isBlank()) {
+            return generated();
+        }
+
+        Map<String, Key> keys = new LinkedHashMap<>();
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.trim().split(":", 2);
+            if (parts.length != 2 || parts[0].isBlank()) {
+                throw new IllegalArgumentException("Ключ JWT задаётся как kid:base64-секрет");
+            }
+            keys.put(parts[0].trim(), Keys.hmacShaKeyFor(Base64.getDecoder().decode(parts[1].trim())));
+        }
+
+        String active = activeKeyId == null || activeKeyId.isBlank() ? keys.keySet().iterator().next() : activeKeyId;
+        return new JwtKeyRing(keys, active);
+    }
+
+    public static JwtKeyRing generated() {
+        return new JwtKeyRing(Map.of(LOCAL_KEY_ID, Keys.secretKeyFor(SignatureAlgorithm.HS256)), LOCAL_KEY_ID);
+    }
+
+    public String activeKeyId() {
+        return activeKeyId;
+    }
+
+    public Key activeKey() {
+        return keys.get(activeKeyId);
+    }
+
+    // Ключ проверки по kid из заголовка; токены без kid выпущены до ротации и проверяются активным ключом
+    public Key verificationKey(String keyId) {
+        Key key = keys.get(keyId == null ? activeKeyId : keyId);
+        if (key == null) {
+            throw new SignatureException("Неизвестный ключ подписи JWT: " + keyId);
+        }
+        return key;
+    }
+}
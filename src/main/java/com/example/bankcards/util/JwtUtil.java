@@ -1,20 +1,104 @@
 package com.example.bankcards.util;
 
+import com.example.bankcards.entity.User;
+import com.example.bankcards.security.UserPrincipal;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Component
-public class JwtUtil {
+public class JwtUtil implements MeterBinder {
 
-    private final Key key = Keys.secretKeyFor(SignatureAlgorithm.HS256);
-    private final long jwtExpirationMs = 86400000; //24 часа
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_TOKEN_VERSION = "ver";
+
+    private static final Duration DEFAULT_ACCESS_TOKEN_TTL = Duration.ofMinutes(15);
+
+    private final JwtKeyRing keyRing;
+    private final long jwtExpirationMs;
+
+    // Парсер неизменяем и потокобезопасен - создаём один раз; ключ проверки выбирается по kid токена
+    private final JwtParser parser;
+
+    // Кэш уже проверенных токенов: ключ - SHA-256 токена, запись живёт не дольше срока действия токена
+    private final Cache<String, Claims> verifiedTokens;
+
+    // Случайный ключ процесса - для тестов и бенчмарков
+    public JwtUtil(boolean verifiedCacheEnabled, long verifiedCacheMaxSize) {
+        this(JwtKeyRing.generated(), DEFAULT_ACCESS_TOKEN_TTL, verifiedCacheEnabled, verifiedCacheMaxSize);
+    }
+
+    @Autowired
+    public JwtUtil(@Value("${jwt.signing-keys:}") String signingKeys,
+                   @Value("${jwt.active-key-id:}") String activeKeyId,
+                   @Value("${jwt.access-token-ttl:PT15M}") Duration accessTokenTtl,
+                   @Value("${jwt.verified-cache.enabled:false}") boolean verifiedCacheEnabled,
+                   @Value("${jwt.verified-cache.max-size:10000}") long verifiedCacheMaxSize) {
+        this(JwtKeyRing.parse(signingKeys, activeKeyId), accessTokenTtl, verifiedCacheEnabled, verifiedCacheMaxSize);
+    }
+
+    public JwtUtil(JwtKeyRing keyRing, Duration accessTokenTtl, boolean verifiedCacheEnabled, long verifiedCacheMaxSize) {
+        this.keyRing = keyRing;
+        this.jwtExpirationMs = accessTokenTtl.toMillis();
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return keyRing.verificationKey(header.getKeyId());
+                    }
+                })
+                .build();
+        this.verifiedTokens = verifiedCacheEnabled
+                ? Caffeine.newBuilder()
+                .maximumSize(verifiedCacheMaxSize)
+                .expireAfter(untilTokenExpiry())
+                .recordStats()
+                .build()
+                : null;
+    }
+
+    /**
+     * Проверяет подпись и срок действия токена за один разбор.
+     *
+     * @throws io.jsonwebtoken.JwtException если токен повреждён, подделан или истёк
+     */
+    public Claims parseClaims(String token) {
+        if (verifiedTokens == null) {
+            return extractAllClaims(token);
+        }
+
+        String tokenHash = sha256(token);
+        Claims cached = verifiedTokens.getIfPresent(tokenHash);
+        if (cached != null && !isExpired(cached)) {
+            return cached;
+        }
+
+        Claims claims = extractAllClaims(token);
+        verifiedTokens.put(tokenHash, claims);
+        return claims;
+    }
 
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
@@ -25,33 +109,96 @@ public class JwtUtil {
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
+        final Claims claims = parseClaims(token);
         return claimsResolver.apply(claims);
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    private boolean isExpired(Claims claims) {
+        return claims.getExpiration() != null && claims.getExpiration().before(new Date());
     }
 
     public String generateToken(String username) {
         return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, keyRing.activeKeyId())
                 .setSubject(username)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpirationMs))
-                .signWith(key)
+                .signWith(keyRing.activeKey())
                 .compact();
     }
 
+    // Токен с id, ролью и версией токенов пользователя - достаточен для аутентификации без БД
+    public String generateToken(User user) {
+        return generateToken(user.getUsername(), user.getId(), user.getRole(), user.getTokenVersion());
+    }
+
+    // То же для пользователя, прошедшего проверку пароля через AuthenticationManager
+    public String generateToken(UserPrincipal principal) {
+        return generateToken(principal.getUsername(), principal.getId(), principal.getRole(), principal.getTokenVersion());
+    }
+
+    private String generateToken(String username, Long userId, User.Role role, Integer tokenVersion) {
+        return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, keyRing.activeKeyId())
+                .setSubject(username)
+                .claim(CLAIM_USER_ID, userId)
+                .claim(CLAIM_ROLE, role.name())
+                .claim(CLAIM_TOKEN_VERSION, tokenVersion)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + jwtExpirationMs))
+                .signWith(keyRing.activeKey())
+                .compact();
+    }
+
+    public long getExpirationMs() {
+        return jwtExpirationMs;
+    }
+
     public boolean validateToken(String token, String username) {
-        final String extractedUsername = extractUsername(token);
-        return (extractedUsername.equals(username) && !isTokenExpired(token));
+        final Claims claims = parseClaims(token);
+        return claims.getSubject().equals(username) && !isExpired(claims);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (verifiedTokens != null) {
+            CaffeineCacheMetrics.monitor(registry, verifiedTokens, "jwt-verified");
+        }
+    }
+
+    private static Expiry<String, Claims> untilTokenExpiry() {
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(String key, Claims claims, long currentTime) {
+                if (claims.getExpiration() == null) {
+                    return 0;
+                }
+                long remainingMs = claims.getExpiration().getTime() - System.currentTimeMillis();
+                return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMs, 0));
+            }
+
+            @Override
+            public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+                return expireAfterCreate(key, claims, currentTime);
+            }
+
+            @Override
+            public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+
+    private static String sha256(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,159 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.CustomUserDetailsService;
+import com.example.bankcards.security.TokenVersionCache;
+import com.example.bankcards.security.UserPrincipal;
+import com.example.bankcards.security.UserPrincipalCache;
+import com.example.bankcards.service.CaffeineCardMetadataCache;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.CardSummaryService;
+import com.example.bankcards.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataAccessException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Реплика - пустая БД H2 без таблиц приложения: любое чтение, ушедшее на неё, падает с ошибкой
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({DataSourceRoutingConfig.class, UserService.class, CustomUserDetailsService.class, UserPrincipalCache.class,
+        TokenVersionCache.class, CardService.class, CardSummaryService.class, CaffeineCardMetadataCache.class,
+        PrimaryReadRoutingTest.PasswordEncoderConfig.class})
+@TestPropertySource(properties = {
+        "datasource.replica.enabled=true",
+        "datasource.replica.url=jdbc:h2:mem:empty_replica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;"
+                + "INIT=CREATE TABLE IF NOT EXISTS replica_lag(seconds DOUBLE PRECISION)",
+        "datasource.replica.username=sa",
+        "datasource.replica.lag-query=SELECT COALESCE(MAX(seconds), 0) FROM replica_lag",
+        "datasource.replica.max-lag=PT2S"
+})
+class PrimaryReadRoutingTest {
+
+    @TestConfiguration
+    static class PasswordEncoderConfig {
+        @Bean
+        PasswordEncoder passwordEncoder() {
+            return new BCryptPasswordEncoder(4);
+        }
+    }
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @AfterEach
+    void tearDown() {
+        cardRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void readOnlyRead_ShouldGoToReplica() {
+        // given
+        User user = saveUser("alice");
+
+        // when / then
+        assertThatThrownBy(() -> userService.getUserById(user.getId()))
+                .isInstanceOf(DataAccessException.class);
+    }
+
+    @Test
+    void updateUser_ShouldReadAndWriteOnPrimary() {
+        // given
+        User user = saveUser("alice");
+
+        // when
+        User updated = userService.updateUser(user.getId(), "alice2", null, null);
+
+        // then
+        assertThat(updated.getTokenVersion()).isEqualTo(user.getTokenVersion() + 1);
+        assertThat(userDetailsService.currentTokenVersion(user.getId())).contains(user.getTokenVersion() + 1);
+        assertThat(userDetailsService.loadUserByUsername("alice2").getId()).isEqualTo(user.getId());
+    }
+
+    @Test
+    void deleteUser_ShouldReadAndWriteOnPrimary() {
+        // given
+        User user = saveUser("alice");
+
+        // when
+        userService.deleteUser(user.getId());
+
+        // then
+        assertThat(userDetailsService.currentTokenVersion(user.getId())).isEmpty();
+    }
+
+    @Test
+    void loadUserByUsername_ShouldReadPrimary() {
+        // given
+        User user = saveUser("alice");
+
+        // when
+        UserPrincipal principal = userDetailsService.loadUserByUsername("alice");
+
+        // then
+        assertThat(principal.getId()).isEqualTo(user.getId());
+        assertThat(userDetailsService.currentTokenVersion(user.getId())).contains(user.getTokenVersion());
+    }
+
+    @Test
+    void getCardView_ShouldReadBalanceFromPrimary() {
+        // given
+        User user = saveUser("alice");
+        Card card = cardRepository.save(Card.builder()
+                .maskedNumber("**** **** **** 0001")
+                .owner(user)
+                .ownerName(user.getUsername())
+                .expirationDate(LocalDate.of(2030, 12, 31))
+                .status(CardStatus.ACTIVE)
+                .balance(BigDecimal.valueOf(1_000))
+                .build());
+
+        // when
+        CardDto view = cardService.getCardView(card.getId());
+
+        // then
+        assertThat(view.getBalance()).isEqualByComparingTo("1000");
+        assertThat(view.getOwnerName()).isEqualTo("alice");
+    }
+
+    private User saveUser(String username) {
+        return userRepository.save(User.builder().username(username).password("p").role(User.Role.USER).build());
+    }
+}
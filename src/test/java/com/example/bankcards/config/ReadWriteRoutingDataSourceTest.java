@@ -0,0 +1,106 @@
+package com.example.bankcards.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Две отдельные БД H2 в режиме PostgreSQL вместо основной и реплики; имя БД показывает, куда ушёл запрос
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(DataSourceRoutingConfig.class)
+@TestPropertySource(properties = {
+        "datasource.replica.enabled=true",
+        "datasource.replica.url=jdbc:h2:mem:replica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;"
+                + "INIT=CREATE TABLE IF NOT EXISTS replica_lag(seconds DOUBLE PRECISION)",
+        "datasource.replica.username=sa",
+        "datasource.replica.lag-query=SELECT COALESCE(MAX(seconds), 0) FROM replica_lag",
+        "datasource.replica.max-lag=PT2S"
+})
+class ReadWriteRoutingDataSourceTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    private JdbcTemplate jdbcTemplate;
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        replica.update("DELETE FROM replica_lag");
+        replicaLagMonitor.check();
+    }
+
+    @Test
+    void readOnlyTransaction_ShouldUseReplica() {
+        assertThat(databaseIn(true)).isEqualTo("replica");
+    }
+
+    @Test
+    void readWriteTransaction_ShouldUsePrimary() {
+        assertThat(databaseIn(false)).isEqualTo("bankcards");
+    }
+
+    @Test
+    void queriesOutsideTransaction_ShouldUsePrimary() {
+        assertThat(jdbcTemplate.queryForObject("SELECT DATABASE()", String.class)).isEqualTo("bankcards");
+    }
+
+    @Test
+    void readOnlyTransaction_ShouldFallBackToPrimary_WhenReplicaLags() {
+        // given
+        replica.update("INSERT INTO replica_lag VALUES (5)");
+
+        // when
+        replicaLagMonitor.check();
+
+        // then
+        assertThat(replicaLagMonitor.isUsable()).isFalse();
+        assertThat(replicaLagMonitor.lagSeconds()).isEqualTo(5.0);
+        assertThat(databaseIn(true)).isEqualTo("bankcards");
+
+        // реплика догнала - чтение возвращается на неё
+        replica.update("DELETE FROM replica_lag");
+        replicaLagMonitor.check();
+        assertThat(databaseIn(true)).isEqualTo("replica");
+    }
+
+    private String databaseIn(boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status -> jdbcTemplate.queryForObject("SELECT DATABASE()", String.class));
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.dto.AuthResponse;
+import com.example.bankcards.dto.LoginRequest;
+import com.example.bankcards.dto.RefreshTokenRequest;
+import com.example.bankcards.service.AuthService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class AuthControllerTest {
+
+    private AuthService authService;
+    private AuthController authController;
+
+    @BeforeEach
+    void setUp() {
+        authService = mock(AuthService.class);
+        authController = new AuthController(authService);
+    }
+
+    @Test
+    void login_ShouldReturnToken() {
+        // given
+        LoginRequest request = new LoginRequest();
+        request.setUsername("testuser");
+        request.setPassword("password");
+        AuthResponse token = new AuthResponse("jwt", "refresh", "Bearer", 900);
+        when(authService.login("testuser", "password")).thenReturn(token);
+
+        // when
+        ResponseEntity<AuthResponse> response = authController.login(request);
+
+        // then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isSameAs(token);
+        verify(authService).login("testuser", "password");
+    }
+
+    @Test
+    void refresh_ShouldReturnNewTokens() {
+        // given
+        RefreshTokenRequest request = new RefreshTokenRequest();
+        request.setRefreshToken("refresh");
+        AuthResponse tokens = new AuthResponse("jwt2", "refresh2", "Bearer", 900);
+        when(authService.refresh("refresh")).thenReturn(tokens);
+
+        // when
+        ResponseEntity<AuthResponse> response = authController.refresh(request);
+
+        // then
+        assertThat(response.getBody()).isSameAs(tokens);
+    }
+
+    @Test
+    void logout_ShouldRevokeRefreshToken() {
+        // given
+        RefreshTokenRequest request = new RefreshTokenRequest();
+        request.setRefreshToken("refresh");
+
+        // when
+        ResponseEntity<Void> response = authController.logout(request);
+
+        // then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        verify(authService).logout("refresh");
+    }
+}
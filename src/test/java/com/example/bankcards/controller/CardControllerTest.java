@@ -1,16 +1,21 @@
 package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardScrollResponse;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardCursor;
 import com.example.bankcards.service.CardService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.userdetails.UserDetails;
 
@@ -29,6 +34,7 @@ class CardControllerTest {
 
     private UserDetails userDetails;
     private Card card;
+    private CardDto cardView;
 
     @BeforeEach
     void setUp() {
@@ -48,34 +54,75 @@ class CardControllerTest {
         card.setBalance(BigDecimal.valueOf(1000));
         card.setStatus(CardStatus.ACTIVE);
         card.setExpirationDate(LocalDate.of(2030, 12, 31));
+
+        cardView = new CardDto(1L, "1234567812345678", "testuser", LocalDate.of(2030, 12, 31),
+                CardStatus.ACTIVE, BigDecimal.valueOf(1000));
     }
 
     @Test
     void getUserCards_ShouldReturnPageOfCardDto() {
         Pageable pageable = mock(Pageable.class);
-        Page<Card> page = new PageImpl<>(List.of(card));
+        Page<CardDto> page = new PageImpl<>(List.of(cardView));
 
-        when(cardService.getUserCards("testuser", pageable)).thenReturn(page);
+        when(cardService.getUserCardViews("testuser", CardStatus.ACTIVE, BigDecimal.ONE, null, pageable)).thenReturn(page);
 
-        ResponseEntity<Page<CardDto>> response = cardController.getUserCards(userDetails, null, null, null, pageable);
+        ResponseEntity<Page<CardDto>> response =
+                cardController.getUserCards(userDetails, CardStatus.ACTIVE, BigDecimal.ONE, null, pageable);
 
         assertThat(response.getBody()).isNotNull();
         assertThat(response.getBody().getContent()).hasSize(1);
         assertThat(response.getBody().getContent().get(0).getId()).isEqualTo(1L);
         assertThat(response.getBody().getContent().get(0).getMaskedNumber()).isEqualTo("**** **** **** 5678");
-        verify(cardService).getUserCards("testuser", pageable);
+        verify(cardService).getUserCardViews("testuser", CardStatus.ACTIVE, BigDecimal.ONE, null, pageable);
+    }
+
+    @Test
+    void scrollUserCards_ShouldReturnNextCursorWhenMoreCardsExist() {
+        // given
+        Slice<CardDto> slice = new SliceImpl<>(List.of(cardView), PageRequest.ofSize(1), true);
+        when(cardService.scrollUserCards("testuser", null, null, null, CardCursor.SortKey.ID, null, 1)).thenReturn(slice);
+
+        // when
+        ResponseEntity<CardScrollResponse> response =
+                cardController.scrollUserCards(userDetails, null, null, null, CardCursor.SortKey.ID, "", 1);
+
+        // then
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getContent()).hasSize(1);
+        assertThat(response.getBody().isHasNext()).isTrue();
+        CardCursor next = CardCursor.decode(response.getBody().getNextCursor());
+        assertThat(next.lastId()).isEqualTo(1L);
+        assertThat(next.sortKey()).isEqualTo(CardCursor.SortKey.ID);
+    }
+
+    @Test
+    void scrollUserCards_ShouldUseSortKeyFromCursor() {
+        // given
+        CardCursor cursor = CardCursor.after(CardCursor.SortKey.EXPIRATION_DATE, cardView);
+        when(cardService.scrollUserCards(eq("testuser"), any(), any(), any(), any(), any(), anyInt()))
+                .thenReturn(new SliceImpl<>(List.of()));
+
+        // when
+        ResponseEntity<CardScrollResponse> response = cardController.scrollUserCards(
+                userDetails, null, null, null, CardCursor.SortKey.ID, cursor.encode(), 500);
+
+        // then
+        assertThat(response.getBody().getNextCursor()).isNull();
+        verify(cardService).scrollUserCards("testuser", null, null, null,
+                CardCursor.SortKey.EXPIRATION_DATE, cursor, 100);
     }
 
     @Test
     void getCardById_ShouldReturnCardDto() {
-        when(cardService.getCardById(1L)).thenReturn(card);
+        when(cardService.getCardView(1L)).thenReturn(cardView);
 
         ResponseEntity<CardDto> response = cardController.getCardById(1L);
 
         assertThat(response.getBody()).isNotNull();
         assertThat(response.getBody().getId()).isEqualTo(1L);
         assertThat(response.getBody().getMaskedNumber()).isEqualTo("**** **** **** 5678");
-        verify(cardService).getCardById(1L);
+        assertThat(response.getBody().getOwnerName()).isEqualTo("testuser");
+        verify(cardService).getCardView(1L);
     }
 
     @Test
@@ -0,0 +1,71 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.dto.CardTransactionDto;
+import com.example.bankcards.dto.CardTransactionScrollResponse;
+import com.example.bankcards.repository.TransactionCursor;
+import com.example.bankcards.security.UserPrincipal;
+import com.example.bankcards.service.CardTransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+class CardTransactionControllerTest {
+
+    private static final Instant AT = Instant.parse("2024-06-01T12:00:00Z");
+
+    private CardTransactionService cardTransactionService;
+    private CardTransactionController controller;
+    private UserPrincipal currentUser;
+
+    @BeforeEach
+    void setUp() {
+        cardTransactionService = mock(CardTransactionService.class);
+        controller = new CardTransactionController(cardTransactionService);
+        currentUser = new UserPrincipal(1L, "user1", null, List.of());
+    }
+
+    @Test
+    void getTransactions_ShouldReturnCursorOfLastRow_WhenMorePagesExist() {
+        // given
+        CardTransactionDto last = new CardTransactionDto(7L, 3L, 20L, BigDecimal.TEN, BigDecimal.ZERO, AT);
+        when(cardTransactionService.getHistory(eq(10L), eq(1L), isNull(), isNull(), isNull(), eq(1)))
+                .thenReturn(new SliceImpl<>(List.of(last), PageRequest.ofSize(1), true));
+
+        // when
+        ResponseEntity<CardTransactionScrollResponse> response =
+                controller.getTransactions(currentUser, 10L, null, null, null, 1);
+
+        // then
+        assertThat(response.getBody().isHasNext()).isTrue();
+        assertThat(TransactionCursor.decode(response.getBody().getNextCursor()))
+                .isEqualTo(new TransactionCursor(AT, 7L));
+    }
+
+    @Test
+    void getTransactions_ShouldDecodeCursorAndCapPageSize() {
+        // given
+        String cursor = new TransactionCursor(AT, 7L).encode();
+        when(cardTransactionService.getHistory(any(), any(), any(), any(), any(), anyInt()))
+                .thenReturn(new SliceImpl<>(List.of(), PageRequest.ofSize(100), false));
+
+        // when
+        ResponseEntity<CardTransactionScrollResponse> response =
+                controller.getTransactions(currentUser, 10L, null, null, cursor, 10_000);
+
+        // then
+        verify(cardTransactionService).getHistory(10L, 1L, null, null, new TransactionCursor(AT, 7L), 100);
+        assertThat(response.getBody().getNextCursor()).isNull();
+    }
+}
@@ -1,13 +1,20 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.BatchTransferRequest;
+import com.example.bankcards.dto.BatchTransferResult;
 import com.example.bankcards.dto.TransferRequest;
 import com.example.bankcards.security.UserPrincipal;
+import com.example.bankcards.repository.IdempotencyRecordRepository;
 import com.example.bankcards.service.CardTransferService;
+import com.example.bankcards.service.IdempotencyService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.ResponseEntity;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -23,7 +30,10 @@ class CardTransferControllerTest {
     @BeforeEach
     void setUp() {
         cardTransferService = mock(CardTransferService.class);
-        controller = new CardTransferController(cardTransferService);
+        // Без заголовка Idempotency-Key таблица ключей не используется
+        IdempotencyService idempotencyService = new IdempotencyService(
+                mock(IdempotencyRecordRepository.class), new ObjectMapper(), Duration.ofHours(24), 100, 1000);
+        controller = new CardTransferController(cardTransferService, idempotencyService);
 
         userPrincipal = new UserPrincipal(1L, "testuser", "password", null);
     }
@@ -35,7 +45,7 @@ class CardTransferControllerTest {
         request.setToCard(20L);
         request.setAmount(BigDecimal.valueOf(500));
 
-        ResponseEntity<?> response = controller.transferBetweenOwnCards(userPrincipal, request);
+        ResponseEntity<?> response = controller.transferBetweenOwnCards(userPrincipal, null, request);
 
         assertThat(response.getStatusCode().is2xxSuccessful()).isTrue();
         Map<String, Object> body = (Map<String, Object>) response.getBody();
@@ -57,7 +67,7 @@ class CardTransferControllerTest {
         doThrow(new IllegalArgumentException("Недостаточно средств")).when(cardTransferService)
                 .transferBetweenOwnCards(userPrincipal, 10L, 20L, BigDecimal.valueOf(500));
 
-        ResponseEntity<?> response = controller.transferBetweenOwnCards(userPrincipal, request);
+        ResponseEntity<?> response = controller.transferBetweenOwnCards(userPrincipal, null, request);
 
         assertThat(response.getStatusCode().is4xxClientError()).isTrue();
         Map<String, String> body = (Map<String, String>) response.getBody();
@@ -71,7 +81,7 @@ class CardTransferControllerTest {
         request.setToCard(200L);
         request.setAmount(BigDecimal.valueOf(1000));
 
-        ResponseEntity<?> response = controller.adminTransfer(request);
+        ResponseEntity<?> response = controller.adminTransfer(userPrincipal, null, request);
 
         assertThat(response.getStatusCode().is2xxSuccessful()).isTrue();
         Map<String, Object> body = (Map<String, Object>) response.getBody();
@@ -93,10 +103,32 @@ class CardTransferControllerTest {
         doThrow(new IllegalArgumentException("Ошибка перевода")).when(cardTransferService)
                 .transferBetweenAnyCards(100L, 200L, BigDecimal.valueOf(1000));
 
-        ResponseEntity<?> response = controller.adminTransfer(request);
+        ResponseEntity<?> response = controller.adminTransfer(userPrincipal, null, request);
 
         assertThat(response.getStatusCode().is4xxClientError()).isTrue();
         Map<String, String> body = (Map<String, String>) response.getBody();
         assertThat(body).containsEntry("error", "Ошибка перевода");
     }
-}
\ No newline at end of file
+
+    @Test
+    void adminBatchTransfer_ShouldReturnPerItemResult() {
+        TransferRequest transfer = new TransferRequest();
+        transfer.setFromCard(100L);
+        transfer.setToCard(200L);
+        transfer.setAmount(BigDecimal.valueOf(1000));
+
+        BatchTransferRequest request = new BatchTransferRequest();
+        request.setTransfers(List.of(transfer));
+        request.setAtomicity(BatchTransferRequest.Atomicity.PER_ITEM);
+
+        BatchTransferResult result = new BatchTransferResult();
+        result.addSuccess(0, transfer);
+        when(cardTransferService.transferBatch(List.of(transfer), BatchTransferRequest.Atomicity.PER_ITEM))
+                .thenReturn(result);
+
+        ResponseEntity<?> response = controller.adminBatchTransfer(userPrincipal, null, request);
+
+        assertThat(response.getStatusCode().is2xxSuccessful()).isTrue();
+        assertThat(response.getBody()).isSameAs(result);
+    }
+}
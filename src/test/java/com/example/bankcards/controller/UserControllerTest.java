@@ -3,12 +3,22 @@ package com.example.bankcards.controller;
 import com.example.bankcards.dto.UserDto;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.security.UserPrincipal;
+import com.example.bankcards.service.UserExportFormat;
+import com.example.bankcards.service.UserExportService;
 import com.example.bankcards.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -17,6 +27,7 @@ import static org.mockito.Mockito.*;
 class UserControllerTest {
 
     private UserService userService;
+    private UserExportService userExportService;
     private UserController userController;
 
     private User user;
@@ -25,7 +36,8 @@ class UserControllerTest {
     @BeforeEach
     void setUp() {
         userService = mock(UserService.class);
-        userController = new UserController(userService);
+        userExportService = mock(UserExportService.class);
+        userController = new UserController(userService, userExportService);
 
         user = new User();
         user.setId(1L);
@@ -36,22 +48,38 @@ class UserControllerTest {
     }
 
     @Test
-    void getAllUsers_ShouldReturnListOfUserDto() {
+    void getAllUsers_ShouldReturnPageOfUserDto() {
         User user2 = new User();
         user2.setId(2L);
         user2.setUsername("user2");
         user2.setRole(User.Role.ADMIN);
 
-        when(userService.getAllUsers()).thenReturn(List.of(user, user2));
+        Pageable pageable = PageRequest.of(0, 2);
+        when(userService.getAllUsers(pageable)).thenReturn(new PageImpl<>(List.of(user, user2), pageable, 10));
 
-        ResponseEntity<List<UserDto>> response = userController.getAllUsers();
+        ResponseEntity<Page<UserDto>> response = userController.getAllUsers(pageable);
 
         assertThat(response.getStatusCode().is2xxSuccessful()).isTrue();
-        assertThat(response.getBody()).hasSize(2);
-        assertThat(response.getBody().get(0).getUsername()).isEqualTo("testuser");
-        assertThat(response.getBody().get(1).getRole()).isEqualTo(User.Role.ADMIN);
+        assertThat(response.getBody().getContent()).hasSize(2);
+        assertThat(response.getBody().getTotalElements()).isEqualTo(10);
+        assertThat(response.getBody().getContent().get(0).getUsername()).isEqualTo("testuser");
+        assertThat(response.getBody().getContent().get(1).getRole()).isEqualTo(User.Role.ADMIN);
 
-        verify(userService).getAllUsers();
+        verify(userService).getAllUsers(pageable);
+    }
+
+    @Test
+    void exportUsers_ShouldStreamInRequestedFormat() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = userController.exportUsers(UserExportFormat.CSV);
+
+        assertThat(response.getHeaders().getContentType().toString()).startsWith("text/csv");
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION)).contains("users.csv");
+        // Запрос к БД выполняется только при записи тела ответа
+        verifyNoInteractions(userExportService);
+
+        OutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        verify(userExportService).export(UserExportFormat.CSV, out);
     }
 
     @Test
@@ -0,0 +1,238 @@
+package com.example.bankcards.load;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardTransactionRepository;
+import com.example.bankcards.repository.IdempotencyRecordRepository;
+import com.example.bankcards.repository.TransferRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.JwtUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Нагрузочный прогон полного стека (Tomcat, JWT-фильтр, Spring Security, JPA) на H2 в режиме PostgreSQL.
+ * Клиенты параллельно читают списки карт и историю операций и переводят между своими картами; в конце
+ * печатаются req/s и перцентили задержек и проверяется, что сумма балансов не изменилась.
+ * <p>
+ * Запуск: {@code mvn -Pload test}, размеры задаются системными свойствами load.*.
+ * Сервер здесь работает на пуле платформенных потоков Tomcat, вариант на виртуальных - {@link VirtualThreadCardApiLoadTest}.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@TestPropertySource(properties = {"spring.threads.virtual.enabled=false", "server.tomcat.accept-count=1000"})
+class CardApiLoadTest {
+
+    private static final int USERS = Integer.getInteger("load.users", 50);
+    private static final int CARDS_PER_USER = Integer.getInteger("load.cardsPerUser", 4);
+    private static final int REQUESTS = Integer.getInteger("load.requests", 5000);
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 64);
+    // Доля переводов среди запросов, остальное - чтение списка карт
+    private static final double TRANSFER_SHARE = Double.parseDouble(System.getProperty("load.transferShare", "0.3"));
+    // Доля запросов истории операций карты
+    private static final double HISTORY_SHARE = Double.parseDouble(System.getProperty("load.historyShare", "0.3"));
+    // При тысячах одновременных соединений очередь accept разбирается дольше стандартных секунд
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(Long.getLong("load.connectTimeoutSeconds", 60));
+
+    private static final BigDecimal INITIAL_BALANCE = BigDecimal.valueOf(1_000_000);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private CardTransactionRepository cardTransactionRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private final List<Client> clients = new ArrayList<>();
+
+    private record Client(String token, List<Long> cardIds) {
+    }
+
+    @BeforeEach
+    void seed() {
+        for (int u = 0; u < USERS; u++) {
+            User user = userRepository.save(User.builder()
+                    .username("load" + u)
+                    .password("password")
+                    .role(User.Role.USER)
+                    .build());
+
+            List<Card> cards = new ArrayList<>();
+            for (int c = 0; c < CARDS_PER_USER; c++) {
+                cards.add(Card.builder()
+                        .maskedNumber(String.format("4%07d%08d", u, c))
+                        .owner(user)
+                        .ownerName(user.getUsername())
+                        .expirationDate(LocalDate.of(2030, 12, 31))
+                        .status(CardStatus.ACTIVE)
+                        .balance(INITIAL_BALANCE)
+                        .build());
+            }
+            List<Long> cardIds = cardRepository.saveAll(cards).stream().map(Card::getId).toList();
+            clients.add(new Client(jwtUtil.generateToken(user), cardIds));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        idempotencyRecordRepository.deleteAllInBatch();
+        cardTransactionRepository.deleteAllInBatch();
+        transferRepository.deleteAllInBatch();
+        cardRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void mixedListingAndTransfers_ShouldConserveTotalBalance() throws Exception {
+        LatencyRecorder listings = new LatencyRecorder("listing", REQUESTS);
+        LatencyRecorder transfers = new LatencyRecorder("transfer", REQUESTS);
+        LatencyRecorder histories = new LatencyRecorder("history", REQUESTS);
+
+        // Клиентов может быть больше, чем платформенных потоков (десятки тысяч соединений)
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        // Собственный пул клиента: потоки executor заняты синхронным send()
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(CONNECT_TIMEOUT)
+                .build();
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+
+        long started = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            inFlight.acquire();
+            executor.execute(() -> {
+                try {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    Client client = clients.get(random.nextInt(clients.size()));
+                    double kind = random.nextDouble();
+                    if (kind < TRANSFER_SHARE) {
+                        send(http, transferRequest(client, random), transfers);
+                    } else if (kind < TRANSFER_SHARE + HISTORY_SHARE) {
+                        send(http, historyRequest(client, random), histories);
+                    } else {
+                        send(http, listingRequest(client, random), listings);
+                    }
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+        inFlight.acquire(CONCURRENCY);
+        long elapsed = System.nanoTime() - started;
+        executor.shutdown();
+        assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+        // Закрывает keep-alive соединения, иначе следующий прогон упрётся в лимит дескрипторов
+        http.close();
+
+        System.out.printf("Load: %d users x %d cards, %d requests, concurrency %d, server on %s threads%n",
+                USERS, CARDS_PER_USER, REQUESTS, CONCURRENCY, virtualThreads ? "virtual" : "platform");
+        System.out.println(listings.report(elapsed));
+        System.out.println(transfers.report(elapsed));
+        System.out.println(histories.report(elapsed));
+
+        assertThat(listings.failures()).isZero();
+        assertThat(transfers.failures()).isZero();
+        assertThat(histories.failures()).isZero();
+        BigDecimal total = cardRepository.findAll().stream()
+                .map(Card::getBalance)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertThat(total).isEqualByComparingTo(INITIAL_BALANCE.multiply(BigDecimal.valueOf((long) USERS * CARDS_PER_USER)));
+    }
+
+    private HttpRequest listingRequest(Client client, ThreadLocalRandom random) {
+        return HttpRequest.newBuilder(URI.create(baseUrl() + "/api/cards?size=20&page=" + random.nextInt(2)))
+                .header("Authorization", "Bearer " + client.token())
+                .GET()
+                .build();
+    }
+
+    // Последние 20 операций по случайной своей карте
+    private HttpRequest historyRequest(Client client, ThreadLocalRandom random) {
+        Long cardId = client.cardIds().get(random.nextInt(client.cardIds().size()));
+        return HttpRequest.newBuilder(URI.create(baseUrl() + "/api/cards/" + cardId + "/transactions?size=20"))
+                .header("Authorization", "Bearer " + client.token())
+                .GET()
+                .build();
+    }
+
+    // Суммы ниже лимита комиссии - общий баланс должен сохраниться точно.
+    // Каждый перевод с новым Idempotency-Key, как у клиента с повторами
+    private HttpRequest transferRequest(Client client, ThreadLocalRandom random) {
+        List<Long> cards = client.cardIds();
+        Long from = cards.get(random.nextInt(cards.size()));
+        Long to = cards.get(random.nextInt(cards.size()));
+        String body = String.format("{\"fromCard\":%d,\"toCard\":%d,\"amount\":%d}", from, to, random.nextInt(1, 1000));
+        return HttpRequest.newBuilder(URI.create(baseUrl() + "/api/cards/transfer"))
+                .header("Authorization", "Bearer " + client.token())
+                .header("Content-Type", "application/json")
+                .header("Idempotency-Key", UUID.randomUUID().toString())
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static void send(HttpClient http, HttpRequest request, LatencyRecorder recorder) {
+        long start = System.nanoTime();
+        boolean success;
+        try {
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            success = response.statusCode() == 200;
+            if (!success) {
+                System.out.println(request.uri() + " -> " + response.statusCode() + " " + response.body());
+            }
+        } catch (Exception e) {
+            System.out.println(request.uri() + " -> " + e);
+            success = false;
+        }
+        recorder.record(System.nanoTime() - start, success);
+    }
+
+    private String baseUrl() {
+        return "http://localhost:" + port;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.bankcards.load;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Задержки запросов одного вида: фиксированный массив без блокировок, перцентили считаются по окончании.
+ */
+class LatencyRecorder {
+
+    private final String name;
+    private final AtomicLongArray latenciesNanos;
+    private final AtomicInteger recorded = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    LatencyRecorder(String name, int capacity) {
+        this.name = name;
+        this.latenciesNanos = new AtomicLongArray(capacity);
+    }
+
+    void record(long nanos, boolean success) {
+        int index = recorded.getAndIncrement();
+        if (index < latenciesNanos.length()) {
+            latenciesNanos.set(index, nanos);
+        }
+        if (!success) {
+            failed.incrementAndGet();
+        }
+    }
+
+    int count() {
+        return Math.min(recorded.get(), latenciesNanos.length());
+    }
+
+    int failures() {
+        return failed.get();
+    }
+
+    String report(long elapsedNanos) {
+        long[] sorted = new long[count()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = latenciesNanos.get(i);
+        }
+        Arrays.sort(sorted);
+        double seconds = elapsedNanos / 1e9;
+        return String.format("%-10s %7d req %6d err %9.1f req/s  p50 %7.2f ms  p90 %7.2f ms  p99 %7.2f ms  max %7.2f ms",
+                name, sorted.length, failures(), sorted.length / seconds,
+                millis(percentile(sorted, 0.50)), millis(percentile(sorted, 0.90)),
+                millis(percentile(sorted, 0.99)), millis(sorted.length == 0 ? 0 : sorted[sorted.length - 1]));
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
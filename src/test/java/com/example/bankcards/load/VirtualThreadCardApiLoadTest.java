@@ -0,0 +1,12 @@
+package com.example.bankcards.load;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Тот же прогон, что {@link CardApiLoadTest}, но Tomcat обрабатывает запросы на виртуальных потоках.
+ * Сравнение режимов на 10k одновременных соединений:
+ * {@code mvn -Pload test -Dload.concurrency=10000 -Dload.requests=50000}.
+ */
+@TestPropertySource(properties = "spring.threads.virtual.enabled=true")
+class VirtualThreadCardApiLoadTest extends CardApiLoadTest {
+}
@@ -0,0 +1,105 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class CardSpecificationsTest {
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        owner = userRepository.save(User.builder().username("owner").password("p").role(User.Role.USER).build());
+        User other = userRepository.save(User.builder().username("other").password("p").role(User.Role.USER).build());
+
+        // 30 карт владельца: каждая третья заблокирована, балансы 100..3000
+        for (int i = 1; i <= 30; i++) {
+            save(owner, i % 3 == 0 ? CardStatus.BLOCKED : CardStatus.ACTIVE, BigDecimal.valueOf(i * 100L), i);
+        }
+        save(other, CardStatus.ACTIVE, BigDecimal.valueOf(1000), 99);
+    }
+
+    @Test
+    void filter_ShouldApplyPredicatesInQueryWithCorrectPaging() {
+        Page<Card> page = cardRepository.findAll(
+                CardSpecifications.filter(owner.getId(), CardStatus.ACTIVE, BigDecimal.valueOf(500), BigDecimal.valueOf(2000)),
+                PageRequest.of(0, 5, Sort.by("id"))
+        );
+
+        // Баланс 500..2000 - карты 5..20, из них активны 11
+        assertThat(page.getTotalElements()).isEqualTo(11);
+        assertThat(page.getContent()).hasSize(5)
+                .allSatisfy(card -> {
+                    assertThat(card.getStatus()).isEqualTo(CardStatus.ACTIVE);
+                    assertThat(card.getBalance()).isBetween(BigDecimal.valueOf(500), BigDecimal.valueOf(2000));
+                });
+    }
+
+    @Test
+    void filter_ShouldIgnoreMissingPredicates() {
+        Page<Card> page = cardRepository.findAll(
+                CardSpecifications.filter(owner.getId(), null, null, null),
+                PageRequest.of(0, 50)
+        );
+
+        assertThat(page.getTotalElements()).isEqualTo(30);
+    }
+
+    @Test
+    void after_ShouldTraverseAllCardsWithoutGapsOrDuplicates() {
+        // Даты истечения у всех карт совпадают - порядок держится только на id
+        List<Long> seen = new ArrayList<>();
+        CardCursor cursor = null;
+        do {
+            List<CardDto> slice = cardRepository.findViews(
+                    CardSpecifications.filter(owner.getId(), CardStatus.ACTIVE, null, null)
+                            .and(CardSpecifications.after(cursor)),
+                    Sort.by("expirationDate", "id"),
+                    7
+            );
+            slice.forEach(card -> seen.add(card.getId()));
+            cursor = slice.size() < 7 ? null
+                    : CardCursor.decode(CardCursor.after(CardCursor.SortKey.EXPIRATION_DATE, slice.get(6)).encode());
+        } while (cursor != null);
+
+        assertThat(seen).hasSize(20).doesNotHaveDuplicates().isSorted();
+    }
+
+    private void save(User user, CardStatus status, BigDecimal balance, int n) {
+        cardRepository.save(Card.builder()
+                .maskedNumber("5000000000" + String.format("%06d", n) + user.getUsername())
+                .owner(user)
+                .ownerName(user.getUsername())
+                .expirationDate(LocalDate.of(2030, 1, 1))
+                .status(status)
+                .balance(balance)
+                .build());
+    }
+}
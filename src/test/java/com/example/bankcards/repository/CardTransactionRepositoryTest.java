@@ -0,0 +1,114 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.CardTransactionDto;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class CardTransactionRepositoryTest {
+
+    private static final Long CARD = 7L;
+    private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+    private static final Instant END = Instant.parse("9999-12-31T00:00:00Z");
+
+    @Autowired
+    private CardTransactionRepository cardTransactionRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        // created_at проставляется при вставке, поэтому для управляемого времени - напрямую в таблицу.
+        // По две проводки на одну секунду: порядок внутри секунды определяет id
+        long id = 1;
+        for (int i = 0; i < 25; i++) {
+            Instant at = START.plusSeconds(i / 2);
+            insert(id++, CARD, at);
+            insert(id++, 8L, at);
+        }
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findHistory_ShouldWalkAllPagesNewestFirstWithOneStatementPerPage() {
+        List<CardTransactionDto> all = new ArrayList<>();
+        Instant beforeCreatedAt = END;
+        Long beforeId = 0L;
+        int pages = 0;
+
+        while (true) {
+            List<CardTransactionDto> page = cardTransactionRepository.findHistory(
+                    CARD, Instant.EPOCH, beforeCreatedAt, beforeId, Limit.of(10));
+            pages++;
+            all.addAll(page);
+            if (page.size() < 10) {
+                break;
+            }
+            CardTransactionDto last = page.get(page.size() - 1);
+            beforeCreatedAt = last.getCreatedAt();
+            beforeId = last.getId();
+        }
+
+        assertThat(all).hasSize(25);
+        assertThat(all).extracting(CardTransactionDto::getId).doesNotHaveDuplicates();
+        for (int i = 1; i < all.size(); i++) {
+            CardTransactionDto newer = all.get(i - 1);
+            CardTransactionDto older = all.get(i);
+            assertThat(newer.getCreatedAt().isAfter(older.getCreatedAt())
+                    || newer.getCreatedAt().equals(older.getCreatedAt()) && newer.getId() > older.getId()).isTrue();
+        }
+        // Только SELECT страниц, без COUNT
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(pages);
+    }
+
+    @Test
+    void findHistory_ShouldApplyPeriodFromInclusiveToExclusive() {
+        Instant from = START.plusSeconds(2);
+        Instant to = START.plusSeconds(5);
+
+        List<CardTransactionDto> history = cardTransactionRepository.findHistory(CARD, from, to, 0L, Limit.of(100));
+
+        // Секунды 2, 3 и 4 - по две проводки карты на секунду
+        assertThat(history).hasSize(6)
+                .allSatisfy(row -> assertThat(row.getCreatedAt()).isBetween(from, to.minusNanos(1)));
+        assertThat(history).extracting(CardTransactionDto::getCounterpartyCardId).containsOnly(9L);
+    }
+
+    private void insert(long id, Long cardId, Instant createdAt) {
+        entityManager.getEntityManager().createNativeQuery("""
+                        insert into card_transactions (id, card_id, counterparty_card_id, transfer_id, amount, commission, created_at)
+                        values (?, ?, ?, ?, ?, ?, ?)
+                        """)
+                .setParameter(1, id)
+                .setParameter(2, cardId)
+                .setParameter(3, 9L)
+                .setParameter(4, id)
+                .setParameter(5, BigDecimal.TEN)
+                .setParameter(6, BigDecimal.ZERO)
+                .setParameter(7, createdAt)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class CardViewRepositoryTest {
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Statistics statistics;
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        owner = userRepository.save(User.builder().username("owner").password("p").role(User.Role.USER).build());
+        for (int i = 1; i <= 25; i++) {
+            cardRepository.save(Card.builder()
+                    .maskedNumber("40000000000000" + String.format("%02d", i))
+                    .owner(owner)
+                    .ownerName("owner")
+                    .expirationDate(LocalDate.of(2030, 1, 1))
+                    .status(CardStatus.ACTIVE)
+                    .balance(BigDecimal.valueOf(i))
+                    .build());
+        }
+
+        // Сущности не должны попадать в контекст из кэша первого уровня
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findViews_ShouldLoadPageWithOwnerInSingleSelectPlusCount() {
+        Page<CardDto> page = cardRepository.findViews(
+                CardSpecifications.ownedBy(owner.getId()), PageRequest.of(0, 10, Sort.by("id")));
+
+        assertThat(page.getContent()).hasSize(10).allSatisfy(card -> assertThat(card.getOwnerName()).isEqualTo("owner"));
+        assertThat(page.getTotalElements()).isEqualTo(25);
+        // SELECT страницы + COUNT, независимо от размера страницы
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void findViews_ShouldSkipCountOnLastPartialPage() {
+        Page<CardDto> page = cardRepository.findViews(
+                CardSpecifications.ownedBy(owner.getId()), PageRequest.of(0, 50));
+
+        assertThat(page.getTotalElements()).isEqualTo(25);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.example.bankcards.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Схема строится changelog-ами Liquibase, а не Hibernate: контекст поднимается, только если
+ * ddl-auto: validate находит в ней все таблицы и колонки сущностей.
+ * Отдельная база H2, чтобы не смешиваться со схемой create-drop остальных тестов.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:migrations;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.liquibase.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+class MigrationSchemaTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void changelog_ShouldApplyAllChangeSetsAndMatchEntities() {
+        Integer applied = jdbcTemplate.queryForObject("select count(*) from databasechangelog", Integer.class);
+
+        assertThat(applied).isEqualTo(15);
+    }
+
+    @Test
+    void changelog_ShouldCreatePerCardHistoryIndexes() {
+        assertThat(indexColumns("idx_transfers_from_card_created")).isEqualTo("from_card_id,created_at,id");
+        assertThat(indexColumns("idx_transfers_to_card_created")).isEqualTo("to_card_id,created_at,id");
+        assertThat(indexColumns("idx_card_transactions_history")).isEqualTo("card_id,created_at,id");
+    }
+
+    private String indexColumns(String index) {
+        return jdbcTemplate.queryForObject("""
+                select listagg(column_name, ',') within group (order by ordinal_position)
+                from information_schema.index_columns
+                where index_name = ?
+                """, String.class, index);
+    }
+}
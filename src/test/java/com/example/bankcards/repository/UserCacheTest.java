@@ -0,0 +1,145 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Каждый вызов репозитория - отдельная транзакция и сессия, поэтому повторное чтение идёт мимо кэша первого уровня
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserCacheTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Statistics statistics;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        user = userRepository.save(User.builder().username("cached").password("p").role(User.Role.USER).build());
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+        roleRepository.deleteAll();
+    }
+
+    @Test
+    void findById_ShouldBeServedFromSecondLevelCache() {
+        // Вставка с IDENTITY не кладёт сущность в кэш - первое чтение идёт в БД
+        userRepository.findById(user.getId()).orElseThrow();
+        statistics.clear();
+
+        userRepository.findById(user.getId()).orElseThrow();
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getDomainDataRegionStatistics("users").getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findByUsername_ShouldHitQueryCacheOnRepeat() {
+        userRepository.findByUsername("cached").orElseThrow();
+        long statementsAfterFirst = statistics.getPrepareStatementCount();
+
+        User repeated = userRepository.findByUsername("cached").orElseThrow();
+
+        assertThat(repeated.getId()).isEqualTo(user.getId());
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statementsAfterFirst);
+    }
+
+    @Test
+    void updatePassword_ShouldInvalidateCachedUserAndQuery() {
+        userRepository.findByUsername("cached").orElseThrow();
+
+        userRepository.updatePassword("cached", "changed");
+
+        assertThat(userRepository.findByUsername("cached").orElseThrow().getPassword()).isEqualTo("changed");
+        assertThat(userRepository.findById(user.getId()).orElseThrow().getPassword()).isEqualTo("changed");
+    }
+
+    @Test
+    void save_ShouldRefreshCachedUser() {
+        User loaded = userRepository.findById(user.getId()).orElseThrow();
+        loaded.setRole(User.Role.ADMIN);
+        userRepository.save(loaded);
+        statistics.clear();
+
+        assertThat(userRepository.findById(user.getId()).orElseThrow().getRole()).isEqualTo(User.Role.ADMIN);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void findByUsername_ShouldMissAfterNewUserIsInserted() {
+        userRepository.findByUsername("late").isPresent();
+
+        userRepository.save(User.builder().username("late").password("p").role(User.Role.USER).build());
+
+        // Вставка в users помечает закэшированный пустой результат устаревшим
+        assertThat(userRepository.findByUsername("late")).isPresent();
+    }
+
+    @Test
+    void roleFindByName_ShouldHitQueryCacheOnRepeat() {
+        roleRepository.save(new Role(null, "AUDITOR"));
+        statistics.clear();
+
+        roleRepository.findByName("AUDITOR").orElseThrow();
+        long statementsAfterFirst = statistics.getPrepareStatementCount();
+
+        assertThat(roleRepository.findByName("AUDITOR").orElseThrow().getName()).isEqualTo("AUDITOR");
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statementsAfterFirst);
+    }
+
+    @Test
+    void uncachedLookups_ShouldSeeChangesMadeOnAnotherNode() {
+        // Пользователь в регионе users и в кэше запросов этого узла
+        userRepository.findById(user.getId()).orElseThrow();
+        userRepository.findByUsername("cached").orElseThrow();
+        // Другой узел сменил роль и версию токенов - кэш этого узла об этом не знает
+        jdbcTemplate.update("update users set role = 'ADMIN', token_version = token_version + 1 where id = ?", user.getId());
+        statistics.clear();
+
+        User byUsername = userRepository.findUncachedByUsername("cached").orElseThrow();
+        User byId = userRepository.findUncachedById(user.getId()).orElseThrow();
+
+        assertThat(byUsername.getRole()).isEqualTo(User.Role.ADMIN);
+        assertThat(byUsername.getTokenVersion()).isEqualTo(user.getTokenVersion() + 1);
+        assertThat(byId.getRole()).isEqualTo(User.Role.ADMIN);
+        assertThat(byId.getTokenVersion()).isEqualTo(user.getTokenVersion() + 1);
+        assertThat(statistics.getDomainDataRegionStatistics("users").getHitCount()).isZero();
+        assertThat(statistics.getQueryCacheHitCount()).isZero();
+        // Обычное чтение по-прежнему отдаёт запись кэша
+        assertThat(userRepository.findById(user.getId()).orElseThrow().getRole()).isEqualTo(User.Role.USER);
+    }
+}
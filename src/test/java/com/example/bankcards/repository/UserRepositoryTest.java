@@ -0,0 +1,46 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.UserExportRow;
+import com.example.bankcards.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class UserRepositoryTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void streamForExport_ShouldReturnRowsInIdOrderWithoutManagedEntities() {
+        for (int i = 0; i < 3; i++) {
+            userRepository.save(User.builder().username("user" + i).password("p").role(User.Role.USER).build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        List<UserExportRow> rows;
+        try (Stream<UserExportRow> stream = userRepository.streamForExport()) {
+            rows = stream.toList();
+        }
+
+        assertThat(rows).extracting(UserExportRow::getUsername).containsExactly("user0", "user1", "user2");
+        assertThat(rows).extracting(UserExportRow::getId).isSorted();
+        assertThat(entityManager.getEntityManager().unwrap(org.hibernate.Session.class)
+                .getStatistics().getEntityCount()).isZero();
+    }
+}
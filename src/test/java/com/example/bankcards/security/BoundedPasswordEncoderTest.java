@@ -0,0 +1,113 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.exception.PasswordHashingOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedPasswordEncoderTest {
+
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        if (encoder != null) {
+            encoder.destroy();
+        }
+    }
+
+    @Test
+    void encodeAndMatches_ShouldDelegateOnPool() {
+        // given
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 1, 4);
+
+        // when
+        String hash = encoder.encode("secret");
+
+        // then
+        assertThat(encoder.matches("secret", hash)).isTrue();
+        assertThat(encoder.matches("wrong", hash)).isFalse();
+    }
+
+    @Test
+    void upgradeEncoding_ShouldBeTrue_ForWeakerStoredHash() {
+        // given
+        String weakHash = new BCryptPasswordEncoder(4).encode("secret");
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(5), 1, 4);
+
+        // when / then
+        assertThat(encoder.upgradeEncoding(weakHash)).isTrue();
+        assertThat(encoder.upgradeEncoding(encoder.encode("secret"))).isFalse();
+    }
+
+    @Test
+    void matches_ShouldReject_WhenQueueIsFull() throws Exception {
+        // given: один поток занят, единственное место в очереди тоже
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        encoder = new BoundedPasswordEncoder(blockingEncoder(started, release), 1, 1);
+        callers.submit(() -> encoder.matches("a", "hash"));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        callers.submit(() -> encoder.matches("b", "hash"));
+        waitForQueuedTask();
+
+        // when / then
+        assertThatThrownBy(() -> encoder.matches("c", "hash"))
+                .isInstanceOf(PasswordHashingOverloadedException.class);
+        assertThat(encoder.rejectedCount()).isEqualTo(1);
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        encoder.bindTo(registry);
+        assertThat(registry.get("bankcards.password.hashing.rejected").functionCounter().count()).isEqualTo(1);
+        release.countDown();
+    }
+
+    @Test
+    void calibrate_ShouldStayWithinBounds() {
+        assertThat(BcryptCostCalibrator.calibrate(Duration.ZERO, 4, 6)).isEqualTo(4);
+        assertThat(BcryptCostCalibrator.calibrate(Duration.ofHours(1), 4, 6)).isEqualTo(6);
+    }
+
+    private void waitForQueuedTask() throws InterruptedException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        encoder.bindTo(registry);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (registry.get("executor.queued").tag("name", "password-hashing").gauge().value() < 1) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private static PasswordEncoder blockingEncoder(CountDownLatch started, CountDownLatch release) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return rawPassword.toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+        };
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.bankcards.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class RateLimitFilterTest {
+
+    private RateLimiter rateLimiter;
+    private RateLimitFilter filter;
+    private FilterChain chain;
+
+    @BeforeEach
+    void setUp() {
+        rateLimiter = mock(RateLimiter.class);
+        filter = new RateLimitFilter(rateLimiter, new ObjectMapper());
+        chain = mock(FilterChain.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void doFilter_ShouldPassAnonymousRequests() throws Exception {
+        // given
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // when
+        filter.doFilter(request, response, chain);
+
+        // then
+        verify(chain).doFilter(request, response);
+        verifyNoInteractions(rateLimiter);
+    }
+
+    @Test
+    void doFilter_ShouldPass_WhenTokenAvailable() throws Exception {
+        // given
+        authenticate(7L);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/cards/transfer");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        when(rateLimiter.tryAcquire(7L, "POST", "/api/cards/transfer")).thenReturn(0L);
+
+        // when
+        filter.doFilter(request, response, chain);
+
+        // then
+        verify(chain).doFilter(request, response);
+        assertThat(response.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void doFilter_ShouldReturn429WithRetryAfter_WhenLimited() throws Exception {
+        // given
+        authenticate(7L);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/cards/transfer");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        when(rateLimiter.tryAcquire(7L, "POST", "/api/cards/transfer")).thenReturn(TimeUnit.MILLISECONDS.toNanos(1500));
+
+        // when
+        filter.doFilter(request, response, chain);
+
+        // then
+        verify(chain, never()).doFilter(any(), any());
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(response.getHeader("Retry-After")).isEqualTo("2");
+        assertThat(response.getContentAsString()).contains("\"status\":429");
+    }
+
+    private static void authenticate(Long userId) {
+        UserPrincipal principal = new UserPrincipal(userId, "user" + userId, null,
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.bankcards.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateLimiterTest {
+
+    private static final String TRANSFER = "/api/cards/transfer";
+
+    private AtomicLong now;
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        now = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+        rateLimiter = new RateLimiter(
+                RateLimitQuota.parseAll("POST /api/cards/transfer/**=2/PT1S,GET /api/cards/**=5/PT1S"),
+                RateLimitQuota.fallback("10/PT1S"),
+                1000, Duration.ofMinutes(10), now::get);
+    }
+
+    @Test
+    void tryAcquire_ShouldAllowBurstUpToCapacity_ThenReturnWait() {
+        // when
+        long first = rateLimiter.tryAcquire(1L, "POST", TRANSFER);
+        long second = rateLimiter.tryAcquire(1L, "POST", TRANSFER);
+        long third = rateLimiter.tryAcquire(1L, "POST", TRANSFER);
+
+        // then: 2 запроса в секунду - следующий маркер через 500 мс
+        assertThat(first).isZero();
+        assertThat(second).isZero();
+        assertThat(third).isEqualTo(TimeUnit.MILLISECONDS.toNanos(500));
+    }
+
+    @Test
+    void tryAcquire_ShouldRefillAtQuotaRate() {
+        // given
+        rateLimiter.tryAcquire(1L, "POST", TRANSFER);
+        rateLimiter.tryAcquire(1L, "POST", TRANSFER);
+
+        // when
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+
+        // then
+        assertThat(rateLimiter.tryAcquire(1L, "POST", TRANSFER)).isZero();
+        assertThat(rateLimiter.tryAcquire(1L, "POST", TRANSFER)).isPositive();
+    }
+
+    @Test
+    void tryAcquire_ShouldKeepSeparateBuckets_PerUserAndRoute() {
+        // given
+        rateLimiter.tryAcquire(1L, "POST", TRANSFER);
+        rateLimiter.tryAcquire(1L, "POST", TRANSFER);
+
+        // when / then
+        assertThat(rateLimiter.tryAcquire(1L, "POST", TRANSFER)).isPositive();
+        assertThat(rateLimiter.tryAcquire(2L, "POST", TRANSFER)).isZero();
+        assertThat(rateLimiter.tryAcquire(1L, "POST", TRANSFER + "/admin")).isPositive();
+        assertThat(rateLimiter.tryAcquire(1L, "GET", "/api/cards/10/transactions")).isZero();
+    }
+
+    @Test
+    void tryAcquire_ShouldShareRouteBucket_AcrossPathIds() {
+        // given: GET /api/cards/** - 5 запросов на все карты вместе
+        for (long id = 1; id <= 5; id++) {
+            assertThat(rateLimiter.tryAcquire(1L, "GET", "/api/cards/" + id)).isZero();
+        }
+
+        // when / then
+        assertThat(rateLimiter.tryAcquire(1L, "GET", "/api/cards/6")).isPositive();
+    }
+
+    @Test
+    void tryAcquire_ShouldUseDefaultQuota_ForUnmatchedRoutes() {
+        for (int i = 0; i < 10; i++) {
+            assertThat(rateLimiter.tryAcquire(1L, "GET", "/api/users/me")).isZero();
+        }
+        assertThat(rateLimiter.tryAcquire(1L, "GET", "/api/users/me")).isPositive();
+    }
+
+    @Test
+    void bindTo_ShouldExposeCountersPerRouteAndOutcome() {
+        // given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        rateLimiter.bindTo(registry);
+
+        // when
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire(1L, "POST", TRANSFER);
+        }
+
+        // then
+        assertThat(registry.get("bankcards.ratelimit.requests")
+                .tag("route", "POST /api/cards/transfer/**").tag("outcome", "allowed")
+                .functionCounter().count()).isEqualTo(2);
+        assertThat(registry.get("bankcards.ratelimit.requests")
+                .tag("route", "POST /api/cards/transfer/**").tag("outcome", "rejected")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void constructor_ShouldReject_IdleTimeoutShorterThanQuotaPeriod() {
+        assertThatThrownBy(() -> new RateLimiter(List.of(RateLimitQuota.parse("/api/users/export=2/PT1M")),
+                RateLimitQuota.fallback("10/PT1S"), 1000, Duration.ofSeconds(30), System::nanoTime))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void parse_ShouldReject_MalformedQuota() {
+        assertThatThrownBy(() -> RateLimitQuota.parse("POST /api/cards/transfer"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RateLimitQuota.parse("/api/cards=0/PT1S"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
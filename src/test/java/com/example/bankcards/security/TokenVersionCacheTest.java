@@ -0,0 +1,64 @@
+package com.example.bankcards.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenVersionCacheTest {
+
+    private TokenVersionCache cache;
+    private Map<Long, Integer> versions;
+    private AtomicInteger loads;
+    private Function<Long, Optional<Integer>> loader;
+
+    @BeforeEach
+    void setUp() {
+        cache = new TokenVersionCache(100, Duration.ofMinutes(1));
+        versions = new HashMap<>(Map.of(1L, 3));
+        loads = new AtomicInteger();
+        loader = id -> {
+            loads.incrementAndGet();
+            return Optional.ofNullable(versions.get(id));
+        };
+    }
+
+    @Test
+    void isCurrent_ShouldAcceptMatchingVersionAndLoadOnce() {
+        assertThat(cache.isCurrent(1L, 3, loader)).isTrue();
+        assertThat(cache.isCurrent(1L, 3, loader)).isTrue();
+
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void isCurrent_ShouldRejectOldVersion() {
+        assertThat(cache.isCurrent(1L, 2, loader)).isFalse();
+    }
+
+    @Test
+    void isCurrent_ShouldRejectDeletedUser() {
+        assertThat(cache.isCurrent(2L, 0, loader)).isFalse();
+    }
+
+    @Test
+    void invalidate_ShouldRejectTokensIssuedBeforeVersionBump() {
+        // given
+        assertThat(cache.isCurrent(1L, 3, loader)).isTrue();
+
+        // when
+        versions.put(1L, 4);
+        cache.invalidate(1L);
+
+        // then
+        assertThat(cache.isCurrent(1L, 3, loader)).isFalse();
+        assertThat(cache.isCurrent(1L, 4, loader)).isTrue();
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.bankcards.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserPrincipalCacheTest {
+
+    private UserPrincipalCache cache;
+    private AtomicInteger loads;
+    private Function<String, UserPrincipal> loader;
+
+    @BeforeEach
+    void setUp() {
+        cache = new UserPrincipalCache(100, Duration.ofMinutes(5));
+        loads = new AtomicInteger();
+        loader = username -> {
+            loads.incrementAndGet();
+            return new UserPrincipal(1L, username, "secret", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        };
+    }
+
+    @Test
+    void get_ShouldLoadOnceAndCountHits() {
+        UserPrincipal first = cache.get("user1", loader);
+        UserPrincipal second = cache.get("user1", loader);
+
+        assertThat(second).isSameAs(first);
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(cache.missCount()).isEqualTo(1);
+        assertThat(cache.hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void get_ShouldNotKeepPassword() {
+        UserPrincipal principal = cache.get("user1", loader);
+
+        assertThat(principal.getPassword()).isNull();
+        assertThat(principal.getId()).isEqualTo(1L);
+        assertThat(principal.getAuthorities()).extracting("authority").containsExactly("ROLE_USER");
+    }
+
+    @Test
+    void invalidate_ShouldForceReload() {
+        cache.get("user1", loader);
+
+        cache.invalidate("user1");
+        cache.get("user1", loader);
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.bankcards.service;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Тот же нагрузочный сценарий в режиме ATOMIC: каждая часть перевода - один условный UPDATE.
+ */
+@TestPropertySource(properties = "transfer.lock-mode=ATOMIC")
+class AtomicCardTransferConcurrencyTest extends CardTransferConcurrencyTest {
+}
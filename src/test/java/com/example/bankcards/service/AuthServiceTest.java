@@ -0,0 +1,128 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.AuthResponse;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.RefreshTokenRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.BoundedPasswordEncoder;
+import com.example.bankcards.security.CustomUserDetailsService;
+import com.example.bankcards.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Вход через настоящий DaoAuthenticationProvider, как его собирает Spring Security из бинов приложения
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(RefreshTokenService.class)
+class AuthServiceTest {
+
+    private static final int STORED_STRENGTH = 4;
+    private static final int CURRENT_STRENGTH = 5;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    private BoundedPasswordEncoder passwordEncoder;
+    private JwtUtil jwtUtil;
+    private AuthService authService;
+
+    @BeforeEach
+    void setUp() {
+        passwordEncoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(CURRENT_STRENGTH), 1, 4);
+        CustomUserDetailsService userDetailsService = new CustomUserDetailsService(userRepository);
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(passwordEncoder);
+        provider.setUserDetailsService(userDetailsService);
+        provider.setUserDetailsPasswordService(userDetailsService);
+        jwtUtil = new JwtUtil(false, 0);
+        authService = new AuthService(new ProviderManager(provider), jwtUtil, refreshTokenService);
+
+        userRepository.save(User.builder()
+                .username("user1")
+                .password(new BCryptPasswordEncoder(STORED_STRENGTH).encode("secret"))
+                .role(User.Role.USER)
+                .tokenVersion(3)
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        refreshTokenRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        passwordEncoder.destroy();
+    }
+
+    @Test
+    void login_ShouldIssueTokenWithUserClaims() {
+        // when
+        AuthResponse response = authService.login("user1", "secret");
+
+        // then
+        Claims claims = jwtUtil.parseClaims(response.getToken());
+        assertThat(claims.getSubject()).isEqualTo("user1");
+        assertThat(claims.get(JwtUtil.CLAIM_ROLE, String.class)).isEqualTo("USER");
+        assertThat(claims.get(JwtUtil.CLAIM_TOKEN_VERSION, Integer.class)).isEqualTo(3);
+        assertThat(response.getTokenType()).isEqualTo("Bearer");
+        assertThat(response.getExpiresIn()).isEqualTo(jwtUtil.getExpirationMs() / 1000);
+    }
+
+    @Test
+    void login_ShouldUpgradeWeakerHash_WithoutRevokingTokens() {
+        // when
+        authService.login("user1", "secret");
+
+        // then
+        User user = userRepository.findByUsername("user1").orElseThrow();
+        assertThat(user.getPassword()).startsWith("$2a$0" + CURRENT_STRENGTH + "$");
+        assertThat(passwordEncoder.matches("secret", user.getPassword())).isTrue();
+        assertThat(user.getTokenVersion()).isEqualTo(3);
+    }
+
+    @Test
+    void login_ShouldThrow_WhenPasswordIsWrong() {
+        // when / then
+        assertThatThrownBy(() -> authService.login("user1", "wrong"))
+                .isInstanceOf(BadCredentialsException.class);
+        assertThat(userRepository.findByUsername("user1").orElseThrow().getPassword())
+                .startsWith("$2a$0" + STORED_STRENGTH + "$");
+    }
+
+    @Test
+    void refresh_ShouldIssueNewPair_AndLogoutShouldRevokeIt() {
+        // given
+        AuthResponse login = authService.login("user1", "secret");
+
+        // when
+        AuthResponse refreshed = authService.refresh(login.getRefreshToken());
+        authService.logout(refreshed.getRefreshToken());
+
+        // then
+        assertThat(jwtUtil.parseClaims(refreshed.getToken()).get(JwtUtil.CLAIM_TOKEN_VERSION, Integer.class)).isEqualTo(3);
+        assertThat(refreshed.getRefreshToken()).isNotEqualTo(login.getRefreshToken());
+        assertThatThrownBy(() -> authService.refresh(refreshed.getRefreshToken()))
+                .isInstanceOf(BadCredentialsException.class);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardMetadata;
+import com.example.bankcards.entity.CardStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CaffeineCardMetadataCacheTest {
+
+    private CardMetadataCache cache;
+    private AtomicInteger loads;
+    private Function<Long, CardMetadata> loader;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CaffeineCardMetadataCache(100, Duration.ofMinutes(5));
+        loads = new AtomicInteger();
+        loader = id -> {
+            loads.incrementAndGet();
+            return new CardMetadata(id, "4000000000000001", 1L, "owner", LocalDate.of(2030, 1, 1), CardStatus.ACTIVE);
+        };
+    }
+
+    @Test
+    void get_ShouldLoadOnceAndReportHitRatio() {
+        cache.get(1L, loader);
+        cache.get(1L, loader);
+        cache.get(1L, loader);
+        cache.get(1L, loader);
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(cache.stats().hitRatio()).isEqualTo(0.75);
+        assertThat(cache.stats().size()).isEqualTo(1);
+    }
+
+    @Test
+    void evict_ShouldForceReload() {
+        cache.get(1L, loader);
+        cache.evict(1L);
+        cache.get(1L, loader);
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void get_ShouldNotCacheMissingCard() {
+        AtomicInteger misses = new AtomicInteger();
+
+        assertThat(cache.get(5L, id -> {
+            misses.incrementAndGet();
+            return null;
+        })).isNull();
+        cache.get(5L, loader);
+
+        assertThat(misses.get()).isEqualTo(1);
+        assertThat(loads.get()).isEqualTo(1);
+    }
+}
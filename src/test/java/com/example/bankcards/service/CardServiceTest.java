@@ -1,8 +1,11 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardMetadata;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.ResourceNotFoundException;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.UserRepository;
 import jakarta.persistence.EntityNotFoundException;
@@ -13,8 +16,11 @@ import org.mockito.Mockito;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,6 +32,8 @@ class CardServiceTest {
 
     private CardRepository cardRepository;
     private UserRepository userRepository;
+    private CardMetadataCache cardMetadataCache;
+    private CardSummaryService cardSummaryService;
     private CardService cardService;
 
     private User user;
@@ -36,7 +44,9 @@ class CardServiceTest {
     void setUp() {
         cardRepository = mock(CardRepository.class);
         userRepository = mock(UserRepository.class);
-        cardService = new CardService(cardRepository, userRepository);
+        cardMetadataCache = new CaffeineCardMetadataCache(100, Duration.ofMinutes(5));
+        cardSummaryService = mock(CardSummaryService.class);
+        cardService = new CardService(cardRepository, userRepository, cardMetadataCache, cardSummaryService);
 
         user = new User();
         user.setId(1L);
@@ -56,27 +66,69 @@ class CardServiceTest {
     }
 
     @Test
-    void getUserCards_ShouldReturnPageOfCards() {
-        Pageable pageable = mock(Pageable.class);
-        Page<Card> page = new PageImpl<>(List.of(card1, card2));
+    void getUserCardViews_ShouldThrow_WhenUserNotFound() {
+        when(userRepository.findByUsername("unknown")).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> cardService.getUserCardViews("unknown", null, null, null, mock(Pageable.class)))
+                .isInstanceOf(EntityNotFoundException.class)
+                .hasMessageContaining("Пользователь не найден");
+    }
 
+    @Test
+    void getUserCardViews_ShouldQueryProjectionForOwner() {
+        Pageable pageable = mock(Pageable.class);
+        Page<CardDto> page = new PageImpl<>(List.of(new CardDto()));
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
-        when(cardRepository.findByOwner(user, pageable)).thenReturn(page);
+        when(cardRepository.findViews(any(Specification.class), eq(pageable))).thenReturn(page);
 
-        Page<Card> result = cardService.getUserCards("testuser", pageable);
+        Page<CardDto> result = cardService.getUserCardViews("testuser", CardStatus.ACTIVE, null, null, pageable);
 
-        assertThat(result.getContent()).containsExactly(card1, card2);
-        verify(userRepository).findByUsername("testuser");
-        verify(cardRepository).findByOwner(user, pageable);
+        assertThat(result).isSameAs(page);
+        verify(cardRepository, never()).findAll(any(Specification.class), any(Pageable.class));
     }
 
     @Test
-    void getUserCards_ShouldThrow_WhenUserNotFound() {
-        when(userRepository.findByUsername("unknown")).thenReturn(Optional.empty());
+    void getCardView_ShouldCacheMetadataAndAlwaysReadBalanceFromDb() {
+        CardMetadata metadata = new CardMetadata(1L, "1111222233334444", 1L, "testuser",
+                LocalDate.of(2030, 1, 1), CardStatus.ACTIVE);
+        when(cardRepository.findMetadataById(1L)).thenReturn(Optional.of(metadata));
+        when(cardRepository.findBalanceById(1L))
+                .thenReturn(Optional.of(BigDecimal.valueOf(100)), Optional.of(BigDecimal.valueOf(70)));
+
+        CardDto first = cardService.getCardView(1L);
+        CardDto second = cardService.getCardView(1L);
+
+        assertThat(first.getBalance()).isEqualByComparingTo("100");
+        assertThat(second.getBalance()).isEqualByComparingTo("70");
+        assertThat(second.getOwnerName()).isEqualTo("testuser");
+        verify(cardRepository, times(1)).findMetadataById(1L);
+        assertThat(cardMetadataCache.stats().hitCount()).isEqualTo(1);
+    }
 
-        assertThatThrownBy(() -> cardService.getUserCards("unknown", mock(Pageable.class)))
-                .isInstanceOf(EntityNotFoundException.class)
-                .hasMessageContaining("Пользователь не найден");
+    @Test
+    void updateCard_ShouldEvictCachedMetadata() {
+        CardMetadata metadata = new CardMetadata(1L, "1111222233334444", 1L, "testuser",
+                LocalDate.of(2030, 1, 1), CardStatus.ACTIVE);
+        when(cardRepository.findMetadataById(1L)).thenReturn(Optional.of(metadata));
+        when(cardRepository.findById(1L)).thenReturn(Optional.of(card1));
+        when(cardRepository.save(any(Card.class))).thenAnswer(i -> i.getArgument(0));
+        cardService.getCardMetadata(1L);
+
+        Card blocked = new Card();
+        blocked.setStatus(CardStatus.BLOCKED);
+        cardService.updateCard(1L, blocked);
+        cardService.getCardMetadata(1L);
+
+        verify(cardRepository, times(2)).findMetadataById(1L);
+    }
+
+    @Test
+    void getCardView_ShouldThrow_WhenCardNotFound() {
+        when(cardRepository.findMetadataById(10L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> cardService.getCardView(10L))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessageContaining("Карта не найдена");
     }
 
     @Test
@@ -93,7 +145,7 @@ class CardServiceTest {
         when(cardRepository.findById(10L)).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> cardService.getCardById(10L))
-                .isInstanceOf(EntityNotFoundException.class)
+                .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessageContaining("Карта не найдена");
     }
 
@@ -108,6 +160,7 @@ class CardServiceTest {
 
         assertThat(result.getOwner()).isEqualTo(user);
         verify(cardRepository).save(newCard);
+        verify(cardSummaryService).cardAdded(1L, null, BigDecimal.valueOf(500));
     }
 
     @Test
@@ -134,34 +187,26 @@ class CardServiceTest {
         assertThat(result.getStatus()).isEqualTo(CardStatus.BLOCKED);
         assertThat(result.getBalance()).isEqualByComparingTo(BigDecimal.valueOf(999));
         verify(cardRepository).save(card1);
+        verify(cardSummaryService).cardChanged(1L, CardStatus.ACTIVE, BigDecimal.valueOf(1000),
+                CardStatus.BLOCKED, BigDecimal.valueOf(999));
     }
 
     @Test
     void deleteCard_ShouldCallRepositoryDelete() {
-        when(cardRepository.existsById(1L)).thenReturn(true);
+        when(cardRepository.findById(1L)).thenReturn(Optional.of(card1));
 
         cardService.deleteCard(1L);
 
-        verify(cardRepository).deleteById(1L);
+        verify(cardRepository).delete(card1);
+        verify(cardSummaryService).cardRemoved(1L, CardStatus.ACTIVE, BigDecimal.valueOf(1000));
     }
 
     @Test
     void deleteCard_ShouldThrow_WhenCardNotFound() {
-        when(cardRepository.existsById(10L)).thenReturn(false);
+        when(cardRepository.findById(10L)).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> cardService.deleteCard(10L))
                 .isInstanceOf(EntityNotFoundException.class)
                 .hasMessageContaining("Карта не найдена");
     }
-
-    @Test
-    void filterCards_ShouldFilterByStatusAndBalance() {
-        Pageable pageable = mock(Pageable.class);
-        Page<Card> page = new PageImpl<>(List.of(card1, card2));
-        when(cardRepository.findByOwner(user, pageable)).thenReturn(page);
-
-        Page<Card> result = cardService.filterCards(user, CardStatus.ACTIVE, BigDecimal.valueOf(500), BigDecimal.valueOf(1500), pageable);
-
-        assertThat(result.getContent()).containsExactly(card1);
-    }
 }
@@ -0,0 +1,190 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.RetryConfig;
+import com.example.bankcards.dto.CardSummaryDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserCardSummaryRepository;
+import com.example.bankcards.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({CardService.class, CardSummaryService.class, CardTransferService.class, CaffeineCardMetadataCache.class,
+        TransferRetryListener.class, RetryConfig.class})
+class CardSummaryServiceTest {
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private CardSummaryService cardSummaryService;
+
+    @Autowired
+    private CardTransferService cardTransferService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserCardSummaryRepository summaryRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private User alice;
+    private User bob;
+
+    @BeforeEach
+    void setUp() {
+        alice = userRepository.save(User.builder().username("alice").password("p").role(User.Role.USER).build());
+        bob = userRepository.save(User.builder().username("bob").password("p").role(User.Role.USER).build());
+        cardRepository.save(card(alice, "4000000000000001", CardStatus.ACTIVE, 1_000));
+        cardRepository.save(card(alice, "4000000000000002", CardStatus.BLOCKED, 500));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void getSummary_ShouldBuildRowFromCards_OnFirstRead() {
+        // when
+        CardSummaryDto summary = cardSummaryService.getSummary(alice.getId());
+
+        // then
+        assertThat(summary.getTotalBalance()).isEqualByComparingTo("1500");
+        assertThat(summary.getCardCount()).isEqualTo(2);
+        assertThat(summary.getActiveCount()).isEqualTo(1);
+        assertThat(summary.getBlockedCount()).isEqualTo(1);
+        assertThat(summaryRepository.existsById(alice.getId())).isTrue();
+    }
+
+    @Test
+    void getSummary_ShouldReturnZeros_ForUserWithoutCards() {
+        // when
+        CardSummaryDto summary = cardSummaryService.getSummary(bob.getId());
+
+        // then
+        assertThat(summary.getTotalBalance()).isEqualByComparingTo("0");
+        assertThat(summary.getCardCount()).isZero();
+    }
+
+    @Test
+    void cardChangesAndTransfers_ShouldKeepSummaryInSyncWithCards() {
+        // given
+        cardSummaryService.getSummary(alice.getId());
+        cardSummaryService.getSummary(bob.getId());
+
+        // when
+        Card created = cardService.createCard(card(null, "4000000000000003", CardStatus.ACTIVE, 300_000), "alice");
+        Card bobCard = cardService.createCard(card(null, "5000000000000001", CardStatus.ACTIVE, 0), "bob");
+        assertSummaryMatchesCards();
+
+        Card blocked = new Card();
+        blocked.setStatus(CardStatus.BLOCKED);
+        blocked.setBalance(BigDecimal.valueOf(250_000));
+        cardService.updateCard(created.getId(), blocked);
+        assertSummaryMatchesCards();
+
+        Card unblocked = new Card();
+        unblocked.setStatus(CardStatus.ACTIVE);
+        cardService.updateCard(created.getId(), unblocked);
+        // Перевод другому пользователю выше лимита: у alice уходят сумма и комиссия, у bob прибавляется сумма
+        cardTransferService.transferBetweenAnyCards(created.getId(), bobCard.getId(), BigDecimal.valueOf(200_000));
+        assertSummaryMatchesCards();
+
+        cardService.deleteCard(bobCard.getId());
+
+        // then
+        assertSummaryMatchesCards();
+        assertThat(summaryOf(alice).getTotalBalance()).isEqualByComparingTo("51400");
+        assertThat(summaryOf(bob).getCardCount()).isZero();
+    }
+
+    @Test
+    void cardChanges_ShouldCreateMissingSummaryWithoutLosingDelta() {
+        // given
+        Card created = cardService.createCard(card(null, "4000000000000003", CardStatus.ACTIVE, 300_000), "alice");
+
+        // when
+        Card blocked = new Card();
+        blocked.setStatus(CardStatus.BLOCKED);
+        blocked.setBalance(BigDecimal.valueOf(250_000));
+        cardService.updateCard(created.getId(), blocked);
+
+        // then: строка создана первым изменением и включает обе карты из setUp и новую
+        assertThat(summaryOf(alice).getTotalBalance()).isEqualByComparingTo("251500");
+        assertThat(summaryOf(alice).getCardCount()).isEqualTo(3);
+        assertThat(summaryOf(alice).getBlockedCount()).isEqualTo(2);
+    }
+
+    @Test
+    void reconcile_ShouldRepairDriftedSummary() {
+        // given
+        cardSummaryService.getSummary(alice.getId());
+        cardSummaryService.getSummary(bob.getId());
+        summaryRepository.applyDelta(alice.getId(), BigDecimal.valueOf(42), 1, 0, 1);
+        entityManager.clear();
+        CardSummaryReconciliationJob job =
+                new CardSummaryReconciliationJob(summaryRepository, cardSummaryService, new SimpleMeterRegistry(), 1);
+
+        // when
+        int repaired = job.reconcile();
+
+        // then
+        assertThat(repaired).isEqualTo(1);
+        entityManager.flush();
+        entityManager.clear();
+        assertSummaryMatchesCards();
+        assertThat(job.reconcile()).isZero();
+    }
+
+    private void assertSummaryMatchesCards() {
+        entityManager.flush();
+        entityManager.clear();
+        for (User user : new User[]{alice, bob}) {
+            assertThat(summaryOf(user))
+                    .usingRecursiveComparison()
+                    .withComparatorForType(BigDecimal::compareTo, BigDecimal.class)
+                    .isEqualTo(summaryRepository.aggregateCards(user.getId()));
+        }
+    }
+
+    // Сводка из таблицы без пересчёта
+    private CardSummaryDto summaryOf(User user) {
+        entityManager.clear();
+        return summaryRepository.findById(user.getId())
+                .map(s -> new CardSummaryDto(s.getTotalBalance(), s.getCardCount(),
+                        s.getActiveCount(), s.getBlockedCount()))
+                .orElseThrow();
+    }
+
+    private static Card card(User owner, String number, CardStatus status, long balance) {
+        return Card.builder()
+                .maskedNumber(number)
+                .owner(owner)
+                .ownerName(owner != null ? owner.getUsername() : "new")
+                .expirationDate(LocalDate.of(2030, 12, 31))
+                .status(status)
+                .balance(BigDecimal.valueOf(balance))
+                .build();
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardMetadata;
+import com.example.bankcards.dto.CardTransactionDto;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.exception.ResourceNotFoundException;
+import com.example.bankcards.repository.CardTransactionRepository;
+import com.example.bankcards.repository.TransactionCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Slice;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardTransactionServiceTest {
+
+    private static final Instant NOW = Instant.parse("2024-06-01T12:00:00Z");
+
+    @Mock
+    private CardTransactionRepository cardTransactionRepository;
+
+    @Mock
+    private CardService cardService;
+
+    @InjectMocks
+    private CardTransactionService cardTransactionService;
+
+    @BeforeEach
+    void setUp() {
+        when(cardService.getCardMetadata(10L)).thenReturn(
+                new CardMetadata(10L, "4000000000000001", 1L, "user1", LocalDate.of(2030, 12, 31), CardStatus.ACTIVE));
+    }
+
+    @Test
+    void getHistory_ShouldFetchOneExtraRowToDetectNextPage() {
+        // given
+        when(cardTransactionRepository.findHistory(eq(10L), any(), any(), any(), eq(Limit.of(3))))
+                .thenReturn(List.of(row(5L), row(4L), row(3L)));
+
+        // when
+        Slice<CardTransactionDto> history = cardTransactionService.getHistory(10L, 1L, null, null, null, 2);
+
+        // then
+        assertThat(history.getContent()).extracting(CardTransactionDto::getId).containsExactly(5L, 4L);
+        assertThat(history.hasNext()).isTrue();
+    }
+
+    @Test
+    void getHistory_ShouldStartBelowCursorButNotAfterPeriodEnd() {
+        // given
+        Instant to = NOW.minusSeconds(60);
+        when(cardTransactionRepository.findHistory(any(), any(), any(), any(), any())).thenReturn(List.of());
+
+        // when
+        cardTransactionService.getHistory(10L, 1L, null, to, new TransactionCursor(NOW.minusSeconds(120), 42L), 20);
+        cardTransactionService.getHistory(10L, 1L, null, to, new TransactionCursor(NOW, 42L), 20);
+
+        // then
+        verify(cardTransactionRepository).findHistory(10L, Instant.EPOCH, NOW.minusSeconds(120), 42L, Limit.of(21));
+        verify(cardTransactionRepository).findHistory(10L, Instant.EPOCH, to, 0L, Limit.of(21));
+    }
+
+    @Test
+    void getHistory_ShouldHideForeignCard() {
+        // when / then
+        assertThatThrownBy(() -> cardTransactionService.getHistory(10L, 2L, null, null, null, 20))
+                .isInstanceOf(ResourceNotFoundException.class);
+        verifyNoInteractions(cardTransactionRepository);
+    }
+
+    private static CardTransactionDto row(Long id) {
+        return new CardTransactionDto(id, id, 20L, BigDecimal.TEN, BigDecimal.ZERO, NOW.minusSeconds(id));
+    }
+}
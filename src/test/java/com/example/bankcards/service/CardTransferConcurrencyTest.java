@@ -0,0 +1,128 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.RetryConfig;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardTransactionRepository;
+import com.example.bankcards.repository.TransferRepository;
+import com.example.bankcards.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Параллельные переводы на реальной транзакционной БД (H2 в режиме PostgreSQL):
+ * встречные переводы не должны терять обновления и приводить к взаимным блокировкам.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({CardTransferService.class, CardSummaryService.class, CaffeineCardMetadataCache.class, TransferRetryListener.class, RetryConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CardTransferConcurrencyTest {
+
+    private static final int CARDS = 20;
+    private static final int THREADS = 16;
+    private static final int TRANSFERS = 4000;
+    private static final BigDecimal INITIAL_BALANCE = BigDecimal.valueOf(1_000_000);
+
+    @Autowired
+    private CardTransferService cardTransferService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private CardTransactionRepository cardTransactionRepository;
+
+    private final List<Long> cardIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        User owner = userRepository.save(User.builder()
+                .username("stress")
+                .password("password")
+                .role(User.Role.USER)
+                .build());
+
+        for (int i = 0; i < CARDS; i++) {
+            Card card = cardRepository.save(Card.builder()
+                    .maskedNumber("400000000000" + String.format("%04d", i))
+                    .owner(owner)
+                    .ownerName("stress")
+                    .expirationDate(LocalDate.of(2030, 12, 31))
+                    .status(CardStatus.ACTIVE)
+                    .balance(INITIAL_BALANCE)
+                    .build());
+            cardIds.add(card.getId());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        cardTransactionRepository.deleteAllInBatch();
+        transferRepository.deleteAllInBatch();
+        cardRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void parallelTransfers_ShouldConserveTotalBalance() throws Exception {
+        Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        for (int i = 0; i < TRANSFERS; i++) {
+            executor.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                Long from = cardIds.get(random.nextInt(CARDS));
+                Long to = cardIds.get(random.nextInt(CARDS));
+                // Суммы ниже лимита - без комиссии, поэтому общий баланс должен сохраниться точно
+                BigDecimal amount = BigDecimal.valueOf(random.nextInt(1, 1000));
+                try {
+                    cardTransferService.transferBetweenAnyCards(from, to, amount);
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            });
+        }
+
+        executor.shutdown();
+        assertThat(executor.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+
+        assertThat(errors).isEmpty();
+        BigDecimal total = cardRepository.findAll().stream()
+                .map(Card::getBalance)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertThat(total).isEqualByComparingTo(INITIAL_BALANCE.multiply(BigDecimal.valueOf(CARDS)));
+        // Повторы после конфликтов не дублируют записи журнала
+        assertThat(transferRepository.count()).isEqualTo(TRANSFERS);
+    }
+}
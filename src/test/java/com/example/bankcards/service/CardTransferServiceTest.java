@@ -1,17 +1,32 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.BatchTransferRequest;
+import com.example.bankcards.dto.BatchTransferResult;
+import com.example.bankcards.dto.CardMetadata;
+import com.example.bankcards.dto.TransferRequest;
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardTransaction;
 import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Transfer;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.BusinessLogicException;
+import com.example.bankcards.exception.CardInactiveException;
+import com.example.bankcards.exception.CardOwnershipException;
+import com.example.bankcards.exception.InsufficientFundsException;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardTransactionRepository;
+import com.example.bankcards.repository.TransferRepository;
 import com.example.bankcards.security.UserPrincipal;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.*;
@@ -23,15 +38,32 @@ class CardTransferServiceTest {
     @Mock
     private CardRepository cardRepository;
 
+    @Mock
+    private CardMetadataCache cardMetadataCache;
+
+    @Mock
+    private TransferRepository transferRepository;
+
+    @Mock
+    private CardTransactionRepository cardTransactionRepository;
+
+    @Mock
+    private CardSummaryService cardSummaryService;
+
     @InjectMocks
     private CardTransferService cardTransferService;
 
+    @Captor
+    private ArgumentCaptor<List<CardTransaction>> postingsCaptor;
+
     private User user;
     private Card cardFrom;
     private Card cardTo;
 
     @BeforeEach
     void setUp() {
+        lenient().when(transferRepository.save(any(Transfer.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
         user = User.builder()
                 .id(1L)
                 .username("user1")
@@ -55,8 +87,8 @@ class CardTransferServiceTest {
     @Test
     void shouldTransferWithoutCommission_WhenAmountBelowLimit() {
         // given
-        when(cardRepository.findById(10L)).thenReturn(Optional.of(cardFrom));
-        when(cardRepository.findById(20L)).thenReturn(Optional.of(cardTo));
+        when(cardRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(cardFrom));
+        when(cardRepository.findByIdForUpdate(20L)).thenReturn(Optional.of(cardTo));
 
         UserPrincipal principal = new UserPrincipal(user.getId(), user.getUsername(), "password", null);
 
@@ -69,11 +101,28 @@ class CardTransferServiceTest {
         verify(cardRepository, times(2)).save(any(Card.class));
     }
 
+    @Test
+    void shouldRejectForeignCardFromCacheWithoutLocking() {
+        // given
+        when(cardMetadataCache.get(eq(10L), any())).thenReturn(
+                new CardMetadata(10L, "4000000000000010", user.getId(), "user1", null, CardStatus.ACTIVE));
+        when(cardMetadataCache.get(eq(20L), any())).thenReturn(
+                new CardMetadata(20L, "4000000000000020", 2L, "other", null, CardStatus.ACTIVE));
+        UserPrincipal principal = new UserPrincipal(user.getId(), user.getUsername(), "password", null);
+
+        // when / then
+        assertThatThrownBy(() ->
+                cardTransferService.transferBetweenOwnCards(principal, 10L, 20L, BigDecimal.valueOf(1000))
+        ).isInstanceOf(BusinessLogicException.class)
+                .hasMessageContaining("только между своими");
+        verify(cardRepository, never()).findByIdForUpdate(any());
+    }
+
     @Test
     void shouldTransferWithCommission_WhenAmountAboveLimit() {
         // given
-        when(cardRepository.findById(10L)).thenReturn(Optional.of(cardFrom));
-        when(cardRepository.findById(20L)).thenReturn(Optional.of(cardTo));
+        when(cardRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(cardFrom));
+        when(cardRepository.findByIdForUpdate(20L)).thenReturn(Optional.of(cardTo));
 
         UserPrincipal principal = new UserPrincipal(user.getId(), user.getUsername(), "password", null);
 
@@ -98,18 +147,195 @@ class CardTransferServiceTest {
     }
 
     @Test
-    void shouldThrowException_WhenInsufficientFunds() {
+    void shouldRecordTransferWithCommissionInLedger() {
         // given
-        cardFrom.setBalance(BigDecimal.valueOf(10_000));
+        when(cardRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(cardFrom));
+        when(cardRepository.findByIdForUpdate(20L)).thenReturn(Optional.of(cardTo));
+        ArgumentCaptor<Transfer> captor = ArgumentCaptor.forClass(Transfer.class);
+
+        // when
+        cardTransferService.transferBetweenAnyCards(10L, 20L, BigDecimal.valueOf(120_000));
+
+        // then
+        verify(transferRepository).save(captor.capture());
+        Transfer recorded = captor.getValue();
+        assertThat(recorded.getFromCardId()).isEqualTo(10L);
+        assertThat(recorded.getToCardId()).isEqualTo(20L);
+        assertThat(recorded.getAmount()).isEqualByComparingTo("120000");
+        assertThat(recorded.getCommission()).isEqualByComparingTo("20");
+
+        // Проводки: списание с комиссией у отправителя, зачисление у получателя
+        verify(cardTransactionRepository).saveAll(postingsCaptor.capture());
+        List<CardTransaction> postings = postingsCaptor.getValue();
+        assertThat(postings).extracting(CardTransaction::getCardId).containsExactly(10L, 20L);
+        assertThat(postings.get(0).getAmount()).isEqualByComparingTo("-120020");
+        assertThat(postings.get(1).getAmount()).isEqualByComparingTo("120000");
+    }
+
+    @Test
+    void shouldNotRecordRejectedTransfer() {
+        // given
+        when(cardRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(cardFrom));
+        when(cardRepository.findByIdForUpdate(20L)).thenReturn(Optional.of(cardTo));
+
+        // when / then
+        assertThatThrownBy(() -> cardTransferService.transferBetweenAnyCards(10L, 20L, BigDecimal.valueOf(1_000_000)))
+                .isInstanceOf(BusinessLogicException.class);
+        verify(transferRepository, never()).save(any());
+    }
+
+    @Test
+    void shouldReadCardsWithoutRowLocks_WhenOptimisticMode() {
+        // given
+        ReflectionTestUtils.setField(cardTransferService, "lockMode", TransferLockMode.OPTIMISTIC);
         when(cardRepository.findById(10L)).thenReturn(Optional.of(cardFrom));
         when(cardRepository.findById(20L)).thenReturn(Optional.of(cardTo));
 
+        // when
+        cardTransferService.transferBetweenAnyCards(10L, 20L, BigDecimal.valueOf(1000));
+
+        // then
+        assertThat(cardFrom.getBalance()).isEqualByComparingTo("149000");
+        assertThat(cardTo.getBalance()).isEqualByComparingTo("51000");
+        verify(cardRepository, never()).findByIdForUpdate(any());
+    }
+
+    @Test
+    void shouldTransferWithConditionalUpdates_WhenAtomicMode() {
+        // given
+        ReflectionTestUtils.setField(cardTransferService, "lockMode", TransferLockMode.ATOMIC);
+        when(cardRepository.debitIfSufficient(10L, BigDecimal.valueOf(1000), null)).thenReturn(1);
+        when(cardRepository.creditIfActive(20L, BigDecimal.valueOf(1000), null)).thenReturn(1);
+        when(cardMetadataCache.get(eq(10L), any())).thenReturn(
+                new CardMetadata(10L, "4000000000000010", user.getId(), "user1", null, CardStatus.ACTIVE));
+        when(cardMetadataCache.get(eq(20L), any())).thenReturn(
+                new CardMetadata(20L, "4000000000000020", 2L, "other", null, CardStatus.ACTIVE));
+
+        // when
+        cardTransferService.transferBetweenAnyCards(10L, 20L, BigDecimal.valueOf(1000));
+
+        // then
+        verify(cardRepository).debitIfSufficient(10L, BigDecimal.valueOf(1000), null);
+        verify(cardRepository).creditIfActive(20L, BigDecimal.valueOf(1000), null);
+        verify(cardRepository, never()).findById(any());
+        verify(cardRepository, never()).save(any());
+        verify(transferRepository).save(any(Transfer.class));
+    }
+
+    @Test
+    void shouldChangeOwnerSummaries_WhenTransferToAnotherUser() {
+        // given
+        cardTo.setOwner(User.builder().id(2L).build());
+        when(cardRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(cardFrom));
+        when(cardRepository.findByIdForUpdate(20L)).thenReturn(Optional.of(cardTo));
+
+        // when
+        cardTransferService.transferBetweenAnyCards(10L, 20L, BigDecimal.valueOf(120_000));
+
+        // then
+        verify(cardSummaryService).balancesChanged(Map.of(
+                1L, new BigDecimal("-120020.000"),
+                2L, BigDecimal.valueOf(120_000)));
+    }
+
+    @Test
+    void shouldChangeOwnerSummaryByCommissionOnly_WhenAtomicTransferBetweenOwnCards() {
+        // given
+        ReflectionTestUtils.setField(cardTransferService, "lockMode", TransferLockMode.ATOMIC);
+        UserPrincipal principal = new UserPrincipal(user.getId(), user.getUsername(), "password", null);
+        when(cardRepository.debitIfSufficient(10L, new BigDecimal("120020.000"), 1L)).thenReturn(1);
+        when(cardRepository.creditIfActive(20L, BigDecimal.valueOf(120_000), 1L)).thenReturn(1);
+
+        // when
+        cardTransferService.transferBetweenOwnCards(principal, 10L, 20L, BigDecimal.valueOf(120_000));
+
+        // then
+        verify(cardSummaryService).balancesChanged(Map.of(1L, new BigDecimal("-20.000")));
+    }
+
+    @Test
+    void shouldExplainRejection_WhenAtomicDebitNotApplied() {
+        // given
+        ReflectionTestUtils.setField(cardTransferService, "lockMode", TransferLockMode.ATOMIC);
+        cardFrom.setBalance(BigDecimal.valueOf(10));
+        when(cardRepository.debitIfSufficient(10L, BigDecimal.valueOf(1000), 1L)).thenReturn(0);
+        when(cardRepository.findById(10L)).thenReturn(Optional.of(cardFrom));
+
+        UserPrincipal principal = new UserPrincipal(user.getId(), user.getUsername(), "password", null);
+
+        // when / then
+        assertThatThrownBy(() ->
+                cardTransferService.transferBetweenOwnCards(principal, 10L, 20L, BigDecimal.valueOf(1000))
+        ).isInstanceOf(BusinessLogicException.class)
+                .hasMessageContaining("Недостаточно средств");
+        verify(cardRepository, never()).creditIfActive(any(), any(), any());
+    }
+
+    @Test
+    void batchTransfer_ShouldSkipFailedItems_WhenPerItem() {
+        // given
+        when(cardRepository.findAllByIdForUpdate(any())).thenReturn(List.of(cardFrom, cardTo));
+
+        List<TransferRequest> transfers = List.of(
+                transfer(10L, 20L, 1000),
+                transfer(10L, 20L, 1_000_000),
+                transfer(20L, 10L, 500)
+        );
+
+        // when
+        BatchTransferResult result = cardTransferService.transferBatch(transfers, BatchTransferRequest.Atomicity.PER_ITEM);
+
+        // then
+        assertThat(result.getSucceeded()).isEqualTo(2);
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(result.getItems().get(1).getError()).contains("Недостаточно средств");
+        assertThat(cardFrom.getBalance()).isEqualByComparingTo("149500");
+        assertThat(cardTo.getBalance()).isEqualByComparingTo("50500");
+        verify(cardRepository, times(1)).findAllByIdForUpdate(any());
+        verify(cardRepository, never()).save(any());
+        // В журнал попадают только применённые переводы
+        verify(transferRepository, times(2)).save(any(Transfer.class));
+    }
+
+    @Test
+    void batchTransfer_ShouldFailWhole_WhenAllOrNothing() {
+        // given
+        when(cardRepository.findAllByIdForUpdate(any())).thenReturn(List.of(cardFrom, cardTo));
+
+        List<TransferRequest> transfers = List.of(
+                transfer(10L, 20L, 1000),
+                transfer(10L, 30L, 1000)
+        );
+
+        // when / then
+        assertThatThrownBy(() ->
+                cardTransferService.transferBatch(transfers, BatchTransferRequest.Atomicity.ALL_OR_NOTHING)
+        ).isInstanceOf(BusinessLogicException.class)
+                .hasMessageContaining("Перевод #1")
+                .hasMessageContaining("не найдена");
+    }
+
+    private static TransferRequest transfer(Long from, Long to, long amount) {
+        TransferRequest request = new TransferRequest();
+        request.setFromCard(from);
+        request.setToCard(to);
+        request.setAmount(BigDecimal.valueOf(amount));
+        return request;
+    }
+
+    @Test
+    void shouldThrowException_WhenInsufficientFunds() {
+        // given
+        cardFrom.setBalance(BigDecimal.valueOf(10_000));
+        when(cardRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(cardFrom));
+        when(cardRepository.findByIdForUpdate(20L)).thenReturn(Optional.of(cardTo));
+
         UserPrincipal principal = new UserPrincipal(user.getId(), user.getUsername(), "password", null);
 
         // when / then
         assertThatThrownBy(() ->
                 cardTransferService.transferBetweenOwnCards(principal, 10L, 20L, BigDecimal.valueOf(100_000))
-        ).isInstanceOf(IllegalArgumentException.class)
+        ).isInstanceOf(InsufficientFundsException.class)
                 .hasMessageContaining("Недостаточно средств");
     }
 
@@ -117,15 +343,15 @@ class CardTransferServiceTest {
     void shouldThrowException_WhenCardInactive() {
         // given
         cardFrom.setStatus(CardStatus.BLOCKED);
-        when(cardRepository.findById(10L)).thenReturn(Optional.of(cardFrom));
-        when(cardRepository.findById(20L)).thenReturn(Optional.of(cardTo));
+        when(cardRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(cardFrom));
+        when(cardRepository.findByIdForUpdate(20L)).thenReturn(Optional.of(cardTo));
 
         UserPrincipal principal = new UserPrincipal(user.getId(), user.getUsername(), "password", null);
 
         // when / then
         assertThatThrownBy(() ->
                 cardTransferService.transferBetweenOwnCards(principal, 10L, 20L, BigDecimal.valueOf(1000))
-        ).isInstanceOf(IllegalArgumentException.class)
+        ).isInstanceOf(CardInactiveException.class)
                 .hasMessageContaining("неактивна");
     }
 
@@ -134,15 +360,15 @@ class CardTransferServiceTest {
         // given
         User anotherUser = User.builder().id(2L).username("other").build();
         cardFrom.setOwner(anotherUser);
-        when(cardRepository.findById(10L)).thenReturn(Optional.of(cardFrom));
-        when(cardRepository.findById(20L)).thenReturn(Optional.of(cardTo));
+        when(cardRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(cardFrom));
+        when(cardRepository.findByIdForUpdate(20L)).thenReturn(Optional.of(cardTo));
 
         UserPrincipal principal = new UserPrincipal(user.getId(), user.getUsername(), "password", null);
 
         // when / then
         assertThatThrownBy(() ->
                 cardTransferService.transferBetweenOwnCards(principal, 10L, 20L, BigDecimal.valueOf(1000))
-        ).isInstanceOf(org.springframework.security.access.AccessDeniedException.class)
+        ).isInstanceOf(CardOwnershipException.class)
                 .hasMessageContaining("только между своими картами");
     }
 }
\ No newline at end of file
@@ -0,0 +1,192 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.TransferRequest;
+import com.example.bankcards.entity.IdempotencyRecord;
+import com.example.bankcards.exception.IdempotencyConflictException;
+import com.example.bankcards.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Без общей транзакции теста: резерв ключа и ответ фиксируются так же, как в приложении
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotencyServiceTest {
+
+    private static final Long USER_ID = 1L;
+
+    @Autowired
+    private IdempotencyRecordRepository repository;
+
+    private IdempotencyService idempotencyService;
+    private AtomicInteger executions;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = service(Duration.ofHours(24), 10);
+        executions = new AtomicInteger();
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    void execute_ShouldReplayStoredResponse_WithoutRunningActionAgain() {
+        // given
+        idempotencyService.execute(USER_ID, "key-1", "transfer", request(100), this::transfer);
+
+        // when
+        ResponseEntity<?> replayed = idempotencyService.execute(USER_ID, "key-1", "transfer", request(100), this::transfer);
+
+        // then
+        assertThat(executions).hasValue(1);
+        assertThat(replayed.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(replayed.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat((String) replayed.getBody()).contains("\"message\":\"ok\"");
+    }
+
+    @Test
+    void execute_ShouldReplayFromTable_WhenResponseIsNotInLocalCache() {
+        // given
+        idempotencyService.execute(USER_ID, "key-1", "transfer", request(100), this::transfer);
+        // Другой экземпляр приложения - кэш пуст
+        IdempotencyService otherInstance = service(Duration.ofHours(24), 10);
+
+        // when
+        ResponseEntity<?> replayed = otherInstance.execute(USER_ID, "key-1", "transfer", request(100), this::transfer);
+
+        // then
+        assertThat(executions).hasValue(1);
+        assertThat(replayed.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+    }
+
+    @Test
+    void execute_ShouldReject_WhenKeyReusedForAnotherRequest() {
+        // given
+        idempotencyService.execute(USER_ID, "key-1", "transfer", request(100), this::transfer);
+
+        // when / then
+        assertThatThrownBy(() -> idempotencyService.execute(USER_ID, "key-1", "transfer", request(200), this::transfer))
+                .isInstanceOf(IdempotencyConflictException.class)
+                .hasMessageContaining("другого запроса");
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void execute_ShouldReject_WhenSameKeyIsInProgress() {
+        // given
+        repository.save(IdempotencyRecord.builder()
+                .userId(USER_ID)
+                .idempotencyKey("key-1")
+                .requestHash("in-progress")
+                .build());
+
+        // when / then
+        assertThatThrownBy(() -> idempotencyService.execute(USER_ID, "key-1", "transfer", request(100), this::transfer))
+                .isInstanceOf(IdempotencyConflictException.class);
+        assertThat(executions).hasValue(0);
+    }
+
+    @Test
+    void execute_ShouldReleaseKey_WhenTransferFailed() {
+        // given
+        ResponseEntity<?> failed = idempotencyService.execute(USER_ID, "key-1", "transfer", request(100),
+                () -> ResponseEntity.badRequest().body(Map.of("error", "Недостаточно средств")));
+
+        // when
+        ResponseEntity<?> retried = idempotencyService.execute(USER_ID, "key-1", "transfer", request(100), this::transfer);
+
+        // then
+        assertThat(failed.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(retried.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void execute_ShouldScopeKeysByUser() {
+        // when
+        idempotencyService.execute(USER_ID, "key-1", "transfer", request(100), this::transfer);
+        idempotencyService.execute(2L, "key-1", "transfer", request(100), this::transfer);
+
+        // then
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    void purgeExpired_ShouldDeleteKeysOlderThanTtlInBatches() throws InterruptedException {
+        // given
+        for (int i = 0; i < 5; i++) {
+            idempotencyService.execute(USER_ID, "key-" + i, "transfer", request(100), this::transfer);
+        }
+        Thread.sleep(10);
+        IdempotencyService expiring = service(Duration.ofMillis(1), 2);
+
+        // when
+        int purged = expiring.purgeExpired();
+
+        // then
+        assertThat(purged).isEqualTo(5);
+        assertThat(repository.count()).isZero();
+        assertThat(idempotencyService.purgeExpired()).isZero();
+    }
+
+    @Test
+    void purgeExpired_ShouldKeepUncompletedReservation() throws InterruptedException {
+        // given
+        // Резерв без ответа: процесс упал между переводом и записью ответа
+        repository.save(IdempotencyRecord.builder()
+                .userId(USER_ID)
+                .idempotencyKey("key-1")
+                .requestHash("in-progress")
+                .build());
+        Thread.sleep(10);
+        IdempotencyService expiring = service(Duration.ofMillis(1), 2);
+
+        // when
+        int purged = expiring.purgeExpired();
+
+        // then
+        assertThat(purged).isZero();
+        assertThatThrownBy(() -> expiring.execute(USER_ID, "key-1", "transfer", request(100), this::transfer))
+                .isInstanceOf(IdempotencyConflictException.class);
+        assertThat(executions).hasValue(0);
+    }
+
+    private ResponseEntity<?> transfer() {
+        executions.incrementAndGet();
+        return ResponseEntity.ok(Map.of("message", "ok"));
+    }
+
+    private IdempotencyService service(Duration ttl, int purgeBatchSize) {
+        return new IdempotencyService(repository, new ObjectMapper(), ttl, 100, purgeBatchSize);
+    }
+
+    private static TransferRequest request(long amount) {
+        TransferRequest request = new TransferRequest();
+        request.setFromCard(10L);
+        request.setToCard(20L);
+        request.setAmount(BigDecimal.valueOf(amount));
+        return request;
+    }
+}
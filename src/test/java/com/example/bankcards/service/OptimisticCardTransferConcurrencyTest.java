@@ -0,0 +1,31 @@
+package com.example.bankcards.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тот же нагрузочный сценарий в режиме OPTIMISTIC: конфликты версий разрешаются повтором перевода.
+ */
+@TestPropertySource(properties = {
+        "transfer.lock-mode=OPTIMISTIC",
+        "transfer.retry.max-attempts=100",
+        "transfer.retry.initial-backoff-ms=1",
+        "transfer.retry.max-backoff-ms=20"
+})
+class OptimisticCardTransferConcurrencyTest extends CardTransferConcurrencyTest {
+
+    @Autowired
+    private TransferRetryListener retryListener;
+
+    @Test
+    @Override
+    void parallelTransfers_ShouldConserveTotalBalance() throws Exception {
+        super.parallelTransfers_ShouldConserveTotalBalance();
+
+        assertThat(retryListener.conflictCount()).isPositive();
+        assertThat(retryListener.exhaustedCount()).isZero();
+    }
+}
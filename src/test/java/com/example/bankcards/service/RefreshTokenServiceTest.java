@@ -0,0 +1,140 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.RefreshToken;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.RefreshTokenRepository;
+import com.example.bankcards.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Без общей транзакции теста: отзыв при повторном использовании должен зафиксироваться, хотя обмен падает с 401
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(RefreshTokenService.class)
+@TestPropertySource(properties = {"jwt.refresh-token.ttl=PT1H", "jwt.refresh-token.purge-batch-size=1"})
+class RefreshTokenServiceTest {
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder()
+                .username("user1")
+                .password("hash")
+                .role(User.Role.USER)
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        refreshTokenRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void issue_ShouldStoreOnlyHash() {
+        // when
+        String token = refreshTokenService.issue(user.getId(), user.getTokenVersion());
+
+        // then
+        RefreshToken stored = refreshTokenRepository.findAll().get(0);
+        assertThat(stored.getTokenHash()).hasSize(64).isNotEqualTo(token);
+        assertThat(stored.getExpiresAt()).isAfter(Instant.now());
+    }
+
+    @Test
+    void rotate_ShouldReplaceToken() {
+        // given
+        String token = refreshTokenService.issue(user.getId(), user.getTokenVersion());
+
+        // when
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(token);
+
+        // then
+        assertThat(rotation.user().getId()).isEqualTo(user.getId());
+        assertThat(rotation.refreshToken()).isNotEqualTo(token);
+        assertThat(refreshTokenService.rotate(rotation.refreshToken()).refreshToken()).isNotBlank();
+    }
+
+    @Test
+    void rotate_ShouldRevokeAllUserTokens_WhenTokenIsReused() {
+        // given
+        String token = refreshTokenService.issue(user.getId(), user.getTokenVersion());
+        String next = refreshTokenService.rotate(token).refreshToken();
+
+        // when
+        assertThatThrownBy(() -> refreshTokenService.rotate(token))
+                .isInstanceOf(BadCredentialsException.class);
+
+        // then: токен, выданный по украденной копии, тоже отозван
+        assertThatThrownBy(() -> refreshTokenService.rotate(next))
+                .isInstanceOf(BadCredentialsException.class);
+        assertThat(refreshTokenRepository.findAll()).allMatch(t -> t.getRevokedAt() != null);
+    }
+
+    @Test
+    void rotate_ShouldReject_WhenTokenVersionChanged() {
+        // given
+        String token = refreshTokenService.issue(user.getId(), user.getTokenVersion());
+        User changed = userRepository.findById(user.getId()).orElseThrow();
+        changed.incrementTokenVersion();
+        userRepository.save(changed);
+
+        // when / then
+        assertThatThrownBy(() -> refreshTokenService.rotate(token))
+                .isInstanceOf(BadCredentialsException.class);
+    }
+
+    @Test
+    void rotate_ShouldReject_UnknownToken() {
+        assertThatThrownBy(() -> refreshTokenService.rotate("unknown"))
+                .isInstanceOf(BadCredentialsException.class);
+    }
+
+    @Test
+    void purgeExpired_ShouldDeleteOnlyExpiredTokens() {
+        // given
+        refreshTokenService.issue(user.getId(), user.getTokenVersion());
+        for (int i = 0; i < 3; i++) {
+            refreshTokenRepository.save(RefreshToken.builder()
+                    .userId(user.getId())
+                    .tokenHash("expired-" + i)
+                    .tokenVersion(0)
+                    .expiresAt(Instant.now().minusSeconds(60))
+                    .build());
+        }
+
+        // when
+        int purged = refreshTokenService.purgeExpired();
+
+        // then
+        assertThat(purged).isEqualTo(3);
+        assertThat(refreshTokenRepository.count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.RetryConfig;
+import com.example.bankcards.dto.BatchTransferRequest;
+import com.example.bankcards.dto.TransferRequest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.CardTransactionRepository;
+import com.example.bankcards.repository.TransferRepository;
+import com.example.bankcards.repository.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({CardTransferService.class, CardSummaryService.class, CaffeineCardMetadataCache.class, TransferRetryListener.class, RetryConfig.class})
+class TransferLedgerTest {
+
+    private static final int TRANSFERS = 40;
+
+    @Autowired
+    private CardTransferService cardTransferService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private CardTransactionRepository cardTransactionRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Statistics statistics;
+    private Long firstCardId;
+    private Long secondCardId;
+
+    @BeforeEach
+    void setUp() {
+        User owner = userRepository.save(User.builder().username("ledger").password("p").role(User.Role.USER).build());
+        firstCardId = cardRepository.save(card(owner, "4000000000000001")).getId();
+        secondCardId = cardRepository.save(card(owner, "4000000000000002")).getId();
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void transferBatch_ShouldWriteLedgerRowsInJdbcBatches() {
+        // given
+        List<TransferRequest> transfers = new ArrayList<>();
+        for (int i = 0; i < TRANSFERS; i++) {
+            transfers.add(i % 2 == 0 ? transfer(firstCardId, secondCardId) : transfer(secondCardId, firstCardId));
+        }
+
+        // when
+        cardTransferService.transferBatch(transfers, BatchTransferRequest.Atomicity.ALL_OR_NOTHING);
+        entityManager.flush();
+
+        // then
+        // Запись журнала и две проводки на каждый перевод
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(TRANSFERS * 3L);
+        // SELECT ... FOR UPDATE карт, nextval последовательностей на каждые 50 id, пакеты UPDATE и INSERT
+        // по 50 строк - без пакетной вставки было бы по оператору на каждую из 120 строк
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(10);
+
+        entityManager.clear();
+        List<Transfer> ledger = transferRepository.findAll();
+        assertThat(ledger).hasSize(TRANSFERS)
+                .allSatisfy(row -> {
+                    assertThat(row.getAmount()).isEqualByComparingTo("100");
+                    assertThat(row.getCommission()).isEqualByComparingTo("0");
+                    assertThat(row.getCreatedAt()).isNotNull();
+                });
+        assertThat(cardTransactionRepository.count()).isEqualTo(TRANSFERS * 2L);
+    }
+
+    private static Card card(User owner, String number) {
+        return Card.builder()
+                .maskedNumber(number)
+                .owner(owner)
+                .ownerName(owner.getUsername())
+                .expirationDate(LocalDate.of(2030, 12, 31))
+                .status(CardStatus.ACTIVE)
+                .balance(BigDecimal.valueOf(10_000))
+                .build();
+    }
+
+    private static TransferRequest transfer(Long from, Long to) {
+        TransferRequest request = new TransferRequest();
+        request.setFromCard(from);
+        request.setToCard(to);
+        request.setAmount(BigDecimal.valueOf(100));
+        return request;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.exception.CardOwnershipException;
+import com.example.bankcards.exception.InsufficientFundsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class TransferMetricsAspectTest {
+
+    private SimpleMeterRegistry registry;
+    private CardTransferService target;
+    private CardTransferService proxy;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        target = mock(CardTransferService.class);
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new TransferMetricsAspect(registry));
+        proxy = factory.getProxy();
+    }
+
+    @Test
+    void shouldTimeSuccessfulTransfer() {
+        // when
+        proxy.transferBetweenAnyCards(1L, 2L, BigDecimal.TEN);
+
+        // then
+        assertThat(registry.get(TransferMetricsAspect.TRANSFER_TIMER)
+                .tags("operation", "transferBetweenAnyCards", "outcome", "success")
+                .timer().count()).isEqualTo(1);
+        assertThat(registry.find(TransferMetricsAspect.FAILURE_COUNTER).counter()).isNull();
+    }
+
+    @Test
+    void shouldCountFailuresByReason() {
+        // given
+        doThrow(new InsufficientFundsException()).when(target).transferBetweenAnyCards(1L, 2L, BigDecimal.TEN);
+        doThrow(new CardOwnershipException()).when(target).transferBetweenAnyCards(3L, 4L, BigDecimal.TEN);
+
+        // when
+        assertThatThrownBy(() -> proxy.transferBetweenAnyCards(1L, 2L, BigDecimal.TEN))
+                .isInstanceOf(InsufficientFundsException.class);
+        assertThatThrownBy(() -> proxy.transferBetweenAnyCards(1L, 2L, BigDecimal.TEN))
+                .isInstanceOf(InsufficientFundsException.class);
+        assertThatThrownBy(() -> proxy.transferBetweenAnyCards(3L, 4L, BigDecimal.TEN))
+                .isInstanceOf(CardOwnershipException.class);
+
+        // then
+        assertThat(registry.get(TransferMetricsAspect.FAILURE_COUNTER).tag("reason", "insufficient_funds")
+                .counter().count()).isEqualTo(2);
+        assertThat(registry.get(TransferMetricsAspect.FAILURE_COUNTER).tag("reason", "ownership")
+                .counter().count()).isEqualTo(1);
+        assertThat(registry.get(TransferMetricsAspect.TRANSFER_TIMER).tag("outcome", "insufficient_funds")
+                .timer().count()).isEqualTo(2);
+    }
+}
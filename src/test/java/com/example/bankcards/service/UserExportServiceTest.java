@@ -0,0 +1,74 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.UserExportRow;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class UserExportServiceTest {
+
+    private UserRepository userRepository;
+    private UserExportService userExportService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        userExportService = new UserExportService(userRepository, new ObjectMapper());
+    }
+
+    @Test
+    void export_ShouldWriteOneJsonObjectPerLine() throws Exception {
+        // given
+        when(userRepository.streamForExport()).thenReturn(Stream.of(
+                new UserExportRow(1L, "alice", User.Role.USER),
+                new UserExportRow(2L, "bob", User.Role.ADMIN)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // when
+        long rows = userExportService.export(UserExportFormat.NDJSON, out);
+
+        // then
+        assertThat(rows).isEqualTo(2);
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "{\"id\":1,\"username\":\"alice\",\"role\":\"USER\"}\n" +
+                "{\"id\":2,\"username\":\"bob\",\"role\":\"ADMIN\"}\n");
+    }
+
+    @Test
+    void export_ShouldWriteCsvWithHeaderAndEscaping() throws Exception {
+        // given
+        when(userRepository.streamForExport()).thenReturn(Stream.of(
+                new UserExportRow(1L, "smith, \"jr\"", User.Role.USER)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // when
+        userExportService.export(UserExportFormat.CSV, out);
+
+        // then
+        assertThat(out.toString(StandardCharsets.UTF_8))
+                .isEqualTo("id,username,role\n1,\"smith, \"\"jr\"\"\",USER\n");
+    }
+
+    @Test
+    void export_ShouldCloseDatabaseStream() throws Exception {
+        // given
+        AtomicBoolean closed = new AtomicBoolean();
+        when(userRepository.streamForExport()).thenReturn(Stream.<UserExportRow>empty().onClose(() -> closed.set(true)));
+
+        // when
+        userExportService.export(UserExportFormat.NDJSON, new ByteArrayOutputStream());
+
+        // then
+        assertThat(closed).isTrue();
+    }
+}
@@ -1,9 +1,16 @@
 package com.example.bankcards.service;
 
 import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.ResourceNotFoundException;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.TokenVersionCache;
+import com.example.bankcards.security.UserPrincipalCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.List;
@@ -17,13 +24,20 @@ class UserServiceTest {
 
     private UserRepository userRepository;
     private PasswordEncoder passwordEncoder;
+    private UserPrincipalCache userPrincipalCache;
+    private TokenVersionCache tokenVersionCache;
+    private CardMetadataCache cardMetadataCache;
     private UserService userService;
 
     @BeforeEach
     void setUp() {
         userRepository = mock(UserRepository.class);
         passwordEncoder = mock(PasswordEncoder.class);
-        userService = new UserService(userRepository, passwordEncoder);
+        userPrincipalCache = mock(UserPrincipalCache.class);
+        tokenVersionCache = mock(TokenVersionCache.class);
+        cardMetadataCache = mock(CardMetadataCache.class);
+        userService = new UserService(userRepository, passwordEncoder, userPrincipalCache, tokenVersionCache,
+                cardMetadataCache);
     }
 
     @Test
@@ -55,18 +69,21 @@ class UserServiceTest {
     }
 
     @Test
-    void getAllUsers_ShouldReturnList() {
+    void getAllUsers_ShouldReturnRequestedPage() {
         User user1 = new User();
         user1.setUsername("user1");
         User user2 = new User();
         user2.setUsername("user2");
+        Pageable pageable = PageRequest.of(0, 2);
 
-        when(userRepository.findAll()).thenReturn(List.of(user1, user2));
+        when(userRepository.findAll(pageable)).thenReturn(new PageImpl<>(List.of(user1, user2), pageable, 5));
 
-        List<User> result = userService.getAllUsers();
+        Page<User> result = userService.getAllUsers(pageable);
 
-        assertThat(result).hasSize(2).contains(user1, user2);
-        verify(userRepository).findAll();
+        assertThat(result.getContent()).hasSize(2).contains(user1, user2);
+        assertThat(result.getTotalElements()).isEqualTo(5);
+        verify(userRepository).findAll(pageable);
+        verify(userRepository, never()).findAll();
     }
 
     @Test
@@ -86,7 +103,7 @@ class UserServiceTest {
         when(userRepository.findById(10L)).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> userService.getUserById(10L))
-                .isInstanceOf(IllegalArgumentException.class)
+                .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessageContaining("User not found with id");
     }
 
@@ -98,7 +115,7 @@ class UserServiceTest {
         user.setPassword("oldpass");
         user.setRole(User.Role.USER);
 
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.findUncachedById(1L)).thenReturn(Optional.of(user));
         when(userRepository.existsByUsername("new")).thenReturn(false);
         when(passwordEncoder.encode("newpass")).thenReturn("encodedNewPass");
         when(userRepository.save(any(User.class))).thenAnswer(i -> i.getArgument(0));
@@ -108,8 +125,10 @@ class UserServiceTest {
         assertThat(updated.getUsername()).isEqualTo("new");
         assertThat(updated.getPassword()).isEqualTo("encodedNewPass");
         assertThat(updated.getRole()).isEqualTo(User.Role.ADMIN);
+        assertThat(updated.getTokenVersion()).isEqualTo(1);
 
         verify(userRepository).save(updated);
+        verify(userPrincipalCache).invalidate("old");
     }
 
     @Test
@@ -118,7 +137,7 @@ class UserServiceTest {
         user.setId(1L);
         user.setUsername("old");
 
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.findUncachedById(1L)).thenReturn(Optional.of(user));
         when(userRepository.existsByUsername("existing")).thenReturn(true);
 
         assertThatThrownBy(() -> userService.updateUser(1L, "existing", null, null))
@@ -130,20 +149,22 @@ class UserServiceTest {
     void deleteUser_ShouldCallRepositoryDelete() {
         User user = new User();
         user.setId(1L);
+        user.setUsername("user1");
 
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.findUncachedById(1L)).thenReturn(Optional.of(user));
 
         userService.deleteUser(1L);
 
         verify(userRepository).delete(user);
+        verify(userPrincipalCache).invalidate("user1");
     }
 
     @Test
     void deleteUser_ShouldThrow_WhenUserNotFound() {
-        when(userRepository.findById(10L)).thenReturn(Optional.empty());
+        when(userRepository.findUncachedById(10L)).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> userService.deleteUser(10L))
-                .isInstanceOf(IllegalArgumentException.class)
+                .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessageContaining("User not found");
     }
 }
@@ -0,0 +1,57 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AfterCommitTest {
+
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void run_ShouldRunImmediately_WhenNoTransaction() {
+        AfterCommit.run(runs::incrementAndGet);
+
+        assertThat(runs.get()).isEqualTo(1);
+    }
+
+    @Test
+    void run_ShouldWaitForCommit_WhenInTransaction() {
+        // given
+        TransactionSynchronizationManager.initSynchronization();
+
+        // when
+        AfterCommit.run(runs::incrementAndGet);
+
+        // then
+        assertThat(runs.get()).isZero();
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        assertThat(runs.get()).isEqualTo(1);
+    }
+
+    @Test
+    void run_ShouldSkip_WhenTransactionRolledBack() {
+        // given
+        TransactionSynchronizationManager.initSynchronization();
+
+        // when
+        AfterCommit.run(runs::incrementAndGet);
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        // then
+        assertThat(runs.get()).isZero();
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.entity.User;
+import com.example.bankcards.security.UserPrincipal;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtUtilTest {
+
+    @Test
+    void parseClaims_ShouldReturnSubjectAndExpiration() {
+        JwtUtil jwtUtil = new JwtUtil(false, 0);
+        String token = jwtUtil.generateToken("user1");
+
+        Claims claims = jwtUtil.parseClaims(token);
+
+        assertThat(claims.getSubject()).isEqualTo("user1");
+        assertThat(claims.getExpiration()).isInTheFuture();
+        assertThat(jwtUtil.validateToken(token, "user1")).isTrue();
+        assertThat(jwtUtil.validateToken(token, "user2")).isFalse();
+    }
+
+    @Test
+    void parseClaims_ShouldReturnCachedClaims_WhenCacheEnabled() {
+        JwtUtil jwtUtil = new JwtUtil(true, 100);
+        String token = jwtUtil.generateToken("user1");
+
+        Claims first = jwtUtil.parseClaims(token);
+        Claims second = jwtUtil.parseClaims(token);
+
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    void parseClaims_ShouldRejectForeignSignature() {
+        JwtUtil issuer = new JwtUtil(false, 0);
+        JwtUtil verifier = new JwtUtil(true, 100);
+        String token = issuer.generateToken("user1");
+
+        assertThatThrownBy(() -> verifier.parseClaims(token))
+                .isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void generateToken_ShouldEmbedIdRoleAndVersion() {
+        JwtUtil jwtUtil = new JwtUtil(false, 0);
+        User user = User.builder()
+                .id(42L)
+                .username("admin")
+                .role(User.Role.ADMIN)
+                .tokenVersion(3)
+                .build();
+
+        UserPrincipal principal = UserPrincipal.fromClaims(jwtUtil.parseClaims(jwtUtil.generateToken(user)));
+
+        assertThat(principal).isNotNull();
+        assertThat(principal.getId()).isEqualTo(42L);
+        assertThat(principal.getUsername()).isEqualTo("admin");
+        assertThat(principal.getTokenVersion()).isEqualTo(3);
+        assertThat(principal.getAuthorities()).extracting("authority").containsExactly("ROLE_ADMIN");
+    }
+
+    @Test
+    void fromClaims_ShouldReturnNull_ForSubjectOnlyToken() {
+        JwtUtil jwtUtil = new JwtUtil(false, 0);
+
+        assertThat(UserPrincipal.fromClaims(jwtUtil.parseClaims(jwtUtil.generateToken("user1")))).isNull();
+    }
+
+    @Test
+    void parseClaims_ShouldAcceptTokenFromAnotherNode_WithSharedKeys() {
+        // given
+        String keys = "k1:" + secret('a');
+        JwtUtil issuer = new JwtUtil(JwtKeyRing.parse(keys, "k1"), Duration.ofMinutes(15), false, 0);
+        JwtUtil verifier = new JwtUtil(JwtKeyRing.parse(keys, "k1"), Duration.ofMinutes(15), true, 100);
+
+        // when
+        Claims claims = verifier.parseClaims(issuer.generateToken("user1"));
+
+        // then
+        assertThat(claims.getSubject()).isEqualTo("user1");
+    }
+
+    @Test
+    void parseClaims_ShouldAcceptOldKeyTokens_AfterRotation() {
+        // given
+        JwtUtil beforeRotation = new JwtUtil(JwtKeyRing.parse("k1:" + secret('a'), "k1"), Duration.ofMinutes(15), false, 0);
+        JwtUtil afterRotation = new JwtUtil(JwtKeyRing.parse("k1:" + secret('a') + ",k2:" + secret('b'), "k2"),
+                Duration.ofMinutes(15), false, 0);
+        String oldToken = beforeRotation.generateToken("user1");
+        String newToken = afterRotation.generateToken("user1");
+
+        // when / then
+        assertThat(afterRotation.parseClaims(oldToken).getSubject()).isEqualTo("user1");
+        assertThatThrownBy(() -> beforeRotation.parseClaims(newToken))
+                .isInstanceOf(JwtException.class)
+                .hasMessageContaining("k2");
+    }
+
+    @Test
+    void parseKeyRing_ShouldRejectUnknownActiveKey() {
+        assertThatThrownBy(() -> JwtKeyRing.parse("k1:" + secret('a'), "k2"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void generateToken_ShouldUseConfiguredTtl() {
+        JwtUtil jwtUtil = new JwtUtil(JwtKeyRing.generated(), Duration.ofMinutes(5), false, 0);
+
+        Claims claims = jwtUtil.parseClaims(jwtUtil.generateToken("user1"));
+
+        assertThat(claims.getExpiration().getTime() - claims.getIssuedAt().getTime()).isEqualTo(Duration.ofMinutes(5).toMillis());
+    }
+
+    private static String secret(char fill) {
+        return Base64.getEncoder().encodeToString(String.valueOf(fill).repeat(32).getBytes());
+    }
+}